@@ -1,28 +1,16 @@
 
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 
-class Card {
-    private final String suit;
-    final String rank;
-
-    public Card(String suit, String rank) {
-        this.suit = suit;
-        this.rank = rank;
-    }
-
-    @Override
-    public String toString() {
-        return rank + " of " + suit;
-    }
-}
+import com.blackjack.AccountStore;
+import com.blackjack.Card;
+import com.blackjack.RandomAlgorithm;
+import com.blackjack.RandomSource;
 
 class Hand {
     private final List<Card> cards;
@@ -40,20 +28,14 @@ class Hand {
         int numAces = 0;
 
         for (Card card : cards) {
-            String rank = card.rank;
-            if (rank.equals("A")) {
-                value += 11;
+            value += card.getHardPoints();
+            if (card.isAce()) {
                 numAces++;
-            } else if (rank.equals("K") || rank.equals("Q") || rank.equals("J")) {
-                value += 10;
-            } else {
-                value += Integer.parseInt(rank);
             }
         }
 
-        while (value > 21 && numAces > 0) {
-            value -= 10;
-            numAces--;
+        if (numAces > 0 && value + 10 <= 21) {
+            value += 10;
         }
 
         return value;
@@ -66,33 +48,34 @@ class Hand {
 
 class Deck {
     private final List<Card> cards;
+    private final List<Card> allCards;
+    private final RandomSource random;
 
     public Deck() {
+        random = RandomAlgorithm.XOSHIRO256PP.create();
         cards = new ArrayList<>();
-        String[] suits = {"♠", "♥", "♦", "♣"};
-        String[] ranks = {"A", "2", "3", "4", "5", "6", "7", "8", "9", "10", "J", "Q", "K"};
-
-        for (String suit : suits) {
-            for (String rank : ranks) {
-                cards.add(new Card(suit, rank));
-            }
+        allCards = new ArrayList<>();
+        for (int code = 0; code < Card.DECK_SIZE; code++) {
+            allCards.add(Card.of(code));
         }
+        cards.addAll(allCards);
     }
 
-    public void shuffle() {
-        for (int i = cards.size() - 1; i > 0; i--) {
-            int j = (int) (Math.random() * (i + 1));
-            Card temp = cards.get(i);
-            cards.set(i, cards.get(j));
-            cards.set(j, temp);
-        }
+    public void reset() {
+        cards.clear();
+        cards.addAll(allCards);
     }
 
     public Card drawCard() {
         if (cards.isEmpty()) {
             throw new IllegalStateException("Deck is empty. Cannot draw a card.");
         }
-        return cards.remove(cards.size() - 1);
+        int last = cards.size() - 1;
+        int j = random.nextInt(cards.size());
+        Card card = cards.get(j);
+        cards.set(j, cards.get(last));
+        cards.remove(last);
+        return card;
     }
 }
 
@@ -124,34 +107,69 @@ class Player {
     }
 }
 
-public class Main {
-    private static final Scanner scanner = new Scanner(System.in);
-    private static final Deck deck = new Deck();
+class SessionSummary {
+    private int rounds;
+    private int wins;
+    private int losses;
+    private int pushes;
+    private long net;
+
+    public void record(int balanceChange) {
+        rounds++;
+        net += balanceChange;
+        if (balanceChange > 0) {
+            wins++;
+        } else if (balanceChange < 0) {
+            losses++;
+        } else {
+            pushes++;
+        }
+    }
 
-    public static void main(String[] args) {
-        System.out.println("--- Welcome to Blackjack! ---");
-        System.out.print("Are you a returning player? (Y/N): ");
-        String returningPlayerInput = scanner.nextLine().toUpperCase();
+    public String roundLine(int balance) {
+        return "Round " + rounds + " | W " + wins + " L " + losses + " P " + pushes
+                + " | net $" + net + " | balance $" + balance;
+    }
 
-        if (returningPlayerInput.equals("Y")) {
-            System.out.print("Enter your name: ");
-            String name = scanner.nextLine();
-            System.out.print("Enter your pin code: ");
-            String pinCode = scanner.nextLine();
+    @Override
+    public String toString() {
+        return "Session: " + rounds + " rounds, " + wins + " wins, " + losses + " losses, "
+                + pushes + " pushes, net $" + net;
+    }
+}
 
-            Player player = loadPlayerData(name, pinCode);
-            if (player == null) {
-                System.out.println("Player not found. Starting as a new player.");
+public class Main {
+    private static final Scanner scanner = new Scanner(System.in);
+    private static final Deck deck = new Deck();
+    private static AccountStore accounts;
+
+    public static void main(String[] args) throws IOException {
+        try (AccountStore store = new AccountStore(new File("player_record"))) {
+            accounts = store;
+            System.out.println("--- Welcome to Blackjack! ---");
+            System.out.print("Are you a returning player? (Y/N): ");
+            String returningPlayerInput = scanner.nextLine().toUpperCase();
+
+            if (returningPlayerInput.equals("Y")) {
+                System.out.print("Enter your name: ");
+                String name = scanner.nextLine();
+                System.out.print("Enter your pin code: ");
+                String pinCode = scanner.nextLine();
+
+                Player player = loadPlayerData(name, pinCode);
+                if (player == null) {
+                    System.out.println("Player not found. Starting as a new player.");
+                    createNewPlayer();
+                } else {
+                    System.out.println("\n--- Welcome back, " + player.getName() + "! ---");
+                    System.out.println("Your current balance: $" + player.getBalance());
+                    playSession(player);
+                }
+            } else if (returningPlayerInput.equals("N")) {
                 createNewPlayer();
             } else {
-                System.out.println("\n--- Welcome back, " + player.getName() + "! ---");
-                System.out.println("Your current balance: $" + player.getBalance());
-                playGame(player);
+                System.out.println("Invalid input. Exiting the game.");
             }
-        } else if (returningPlayerInput.equals("N")) {
-            createNewPlayer();
-        } else {
-            System.out.println("Invalid input. Exiting the game.");
         }
     }
 
@@ -162,32 +180,29 @@ public class Main {
         String pinCode = scanner.nextLine();
 
         Player player = new Player(name, pinCode, 100);
+        try {
+            if (!accounts.create(name, pinCode, player.getBalance())) {
+                System.out.println("A player named " + name + " already exists. Please choose another name.");
+                createNewPlayer();
+                return;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
         System.out.println("\n--- Welcome, " + player.getName() + "! ---");
         System.out.println("Your current balance: $" + player.getBalance());
-        playGame(player);
+        playSession(player);
     }
 
     private static Player loadPlayerData(String name, String pinCode) {
         try {
-            File playerDirectory = new File("player_record");
-            if (!playerDirectory.exists()) {
-                playerDirectory.mkdir();
-                System.out.println("Generating files");
-            }
-
-            File playerFile = new File("player_record/" + name + ".txt");
-            if (!playerFile.exists()) {
+            AccountStore.Account account = accounts.load(name);
+            if (account == null) {
                 return null;
             }
 
-            Scanner fileScanner = new Scanner(playerFile);
-            String savedName = fileScanner.nextLine();
-            String savedPinCode = fileScanner.nextLine();
-            int savedBalance = Integer.parseInt(fileScanner.nextLine());
-            fileScanner.close();
-
-            if (savedName.equals(name) && savedPinCode.equals(pinCode)) {
-                return new Player(savedName, savedPinCode, savedBalance);
+            if (account.getName().equals(name) && account.getPinCode().equals(pinCode)) {
+                return new Player(account.getName(), account.getPinCode(), account.getBalance());
             } else {
                 System.out.println("Player name and pin code do not match.");
                 System.out.print("Would you like to re-enter your name? (Y/N): ");
@@ -200,25 +215,46 @@ public class Main {
                     return null;
                 }
             }
-        } catch (FileNotFoundException e) {
+        } catch (IOException e) {
             return null;
         }
     }
 
-    private static void savePlayerData(Player player) {
+    /**
+     * Applies the session's net result to the stored balance rather than
+     * overwriting it, so a concurrent session for the same player is not lost.
+     */
+    private static void savePlayerData(Player player, int openingBalance) {
         try {
-            File playerFile = new File("player_record/" + player.getName() + ".txt");
-            PrintWriter writer = new PrintWriter(new FileWriter(playerFile));
-            writer.println(player.getName());
-            writer.println(player.getPinCode());
-            writer.println(player.getBalance());
-            writer.close();
+            AccountStore.Account saved = accounts.adjustBalance(player.getName(),
+                    player.getBalance() - openingBalance);
+            if (saved.getBalance() != player.getBalance()) {
+                System.out.println("Another session also played on this account. Saved balance: $"
+                        + saved.getBalance());
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    private static void playGame(Player player) {
+    private static void playSession(Player player) {
+        int openingBalance = player.getBalance();
+        SessionSummary summary = new SessionSummary();
+        boolean playing = true;
+        while (playing) {
+            int balanceBefore = player.getBalance();
+            deck.reset();
+            playRound(player);
+            summary.record(player.getBalance() - balanceBefore);
+            System.out.println(summary.roundLine(player.getBalance()));
+            playing = endRound(player);
+        }
+        System.out.println(summary);
+        savePlayerData(player, openingBalance);
+        System.out.println("Goodbye!");
+    }
+
+    private static void playRound(Player player) {
         System.out.println("\n--- New Round ---");
         System.out.print("Enter your bet amount: ");
         System.out.println("Your current balance: $" + player.getBalance());
@@ -237,7 +273,6 @@ public class Main {
         if (playerHand.getHandValue() == 21) {
             System.out.println("Congratulations! You have Blackjack!");
             player.setBalance(player.getBalance() + (int) (betAmount * 1.5));
-            endRound(player);
             return;
         }
 
@@ -249,7 +284,7 @@ public class Main {
                 displayHands(playerHand, houseHand, false);
                 if (playerHand.getHandValue() > 21) {
                     System.out.println("Busted! You lose.");
-                    endRound(player);
+                    player.setBalance(player.getBalance() - betAmount);
                     return;
                 }
             } else if (action.equals("S")) {
@@ -278,29 +313,21 @@ public class Main {
         } else {
             System.out.println("It's a tie.");
         }
-
-        endRound(player);
     }
 
-    private static void endRound(Player player) {
+    private static boolean endRound(Player player) {
         System.out.println("\n--- Play Again ---");
         if (player.getBalance() == 0) {
             System.out.println("Your balance is $0.");
             System.out.print("Would you like to add money? (Y/N): ");
             String addMoneyInput = scanner.nextLine().toUpperCase();
             if (addMoneyInput.equals("N")) {
-                System.out.println("Goodbye!");
-                System.exit(0);
+                return false;
             }
         }
         System.out.print("Do you want to play again? (Y/N): ");
         String playAgainInput = scanner.nextLine().toUpperCase();
-        if (playAgainInput.equals("Y")) {
-            playGame(player);
-        } else {
-            System.out.println("Goodbye!");
-            System.exit(0);
-        }
+        return playAgainInput.equals("Y");
     }
 
     private static int getPlayerBet(int balance) {
@@ -322,14 +349,14 @@ public class Main {
             System.out.println("\nHouse's Hand: " + formatHand(houseHand.getCards()));
             System.out.println("House's Hand Value: " + houseHand.getHandValue());
         } else {
-            System.out.println("\nHouse's Hand: " + houseHand.getCards().get(0) + " [Hidden]");
+            System.out.println("\nHouse's Hand: " + houseHand.getCards().get(0).getLabel() + " [Hidden]");
         }
     }
 
     private static String formatHand(List<Card> cards) {
         StringBuilder sb = new StringBuilder();
         for (Card card : cards) {
-            sb.append(card).append(" ");
+            sb.append(card.getLabel()).append(" ");
         }
         return sb.toString().trim();
     }
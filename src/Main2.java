@@ -9,20 +9,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
 
-class Card {
-    private final String suit;
-    final String rank;
-
-    public Card(String suit, String rank) {
-        this.suit = suit;
-        this.rank = rank;
-    }
-
-    @Override
-    public String toString() {
-        return rank + " of " + suit;
-    }
-}
+import com.blackjack.Card;
+import com.blackjack.RandomAlgorithm;
+import com.blackjack.RandomSource;
 
 class Hand {
     private final List<Card> cards;
@@ -40,20 +29,14 @@ class Hand {
         int numAces = 0;
 
         for (Card card : cards) {
-            String rank = card.rank;
-            if (rank.equals("A")) {
-                value += 11;
+            value += card.getHardPoints();
+            if (card.isAce()) {
                 numAces++;
-            } else if (rank.equals("K") || rank.equals("Q") || rank.equals("J")) {
-                value += 10;
-            } else {
-                value += Integer.parseInt(rank);
             }
         }
 
-        while (value > 21 && numAces > 0) {
-            value -= 10;
-            numAces--;
+        if (numAces > 0 && value + 10 <= 21) {
+            value += 10;
         }
 
         return value;
@@ -66,33 +49,34 @@ class Hand {
 
 class Deck {
     private final List<Card> cards;
+    private final List<Card> allCards;
+    private final RandomSource random;
 
     public Deck() {
+        random = RandomAlgorithm.XOSHIRO256PP.create();
         cards = new ArrayList<>();
-        String[] suits = {"♠", "♥", "♦", "♣"};
-        String[] ranks = {"A", "2", "3", "4", "5", "6", "7", "8", "9", "10", "J", "Q", "K"};
-
-        for (String suit : suits) {
-            for (String rank : ranks) {
-                cards.add(new Card(suit, rank));
-            }
+        allCards = new ArrayList<>();
+        for (int code = 0; code < Card.DECK_SIZE; code++) {
+            allCards.add(Card.of(code));
         }
+        cards.addAll(allCards);
     }
 
-    public void shuffle() {
-        for (int i = cards.size() - 1; i > 0; i--) {
-            int j = (int) (Math.random() * (i + 1));
-            Card temp = cards.get(i);
-            cards.set(i, cards.get(j));
-            cards.set(j, temp);
-        }
+    public void reset() {
+        cards.clear();
+        cards.addAll(allCards);
     }
 
     public Card drawCard() {
         if (cards.isEmpty()) {
             throw new IllegalStateException("Deck is empty. Cannot draw a card.");
         }
-        return cards.remove(cards.size() - 1);
+        int last = cards.size() - 1;
+        int j = random.nextInt(cards.size());
+        Card card = cards.get(j);
+        cards.set(j, cards.get(last));
+        cards.remove(last);
+        return card;
     }
 }
 
@@ -224,6 +208,7 @@ public class Main2 {
         System.out.println("Your current balance: $" + player.getBalance());
         int betAmount = getPlayerBet(player.getBalance());
 
+        deck.reset();
         Hand playerHand = new Hand();
         Hand houseHand = new Hand();
 
@@ -322,14 +307,14 @@ public class Main2 {
             System.out.println("\nHouse's Hand: " + formatHand(houseHand.getCards()));
             System.out.println("House's Hand Value: " + houseHand.getHandValue());
         } else {
-            System.out.println("\nHouse's Hand: " + houseHand.getCards().get(0) + " [Hidden]");
+            System.out.println("\nHouse's Hand: " + houseHand.getCards().get(0).getLabel() + " [Hidden]");
         }
     }
 
     private static String formatHand(List<Card> cards) {
         StringBuilder sb = new StringBuilder();
         for (Card card : cards) {
-            sb.append(card).append(" ");
+            sb.append(card.getLabel()).append(" ");
         }
         return sb.toString().trim();
     }
@@ -1,4 +1,18 @@
+import com.blackjack.Action;
+import com.blackjack.Card;
+import com.blackjack.Deck;
+import com.blackjack.Hand;
+import com.blackjack.HintService;
+import com.blackjack.House;
+import com.blackjack.Player;
+import com.blackjack.Rules;
+import com.blackjack.StrategyTables;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -6,20 +20,44 @@ import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
 
+/**
+ * A one-seat table driven by buttons. The console game blocks on its prompts,
+ * so the GUI runs its own round on the com.blackjack deck, hands and rules:
+ * every round bets the table minimum, and the shoe is reshuffled once fewer
+ * than {@value #RESHUFFLE_AT} cards are left.
+ */
 public class MainGameGUI extends Application {
-    private Game game;
+    private static final int RESHUFFLE_AT = 15;
+
+    private Rules rules;
+    private Deck deck;
+    private Player player;
+    private House house;
+    private int bet;
+    private boolean roundOver;
+    private List<Card> seen;
     private Label playerNameLabel;
     private Label earningsLabel;
     private Label betStatusLabel;
+    private Label hintLabel;
+    private HintService hints;
     private Button hitButton;
     private Button stayButton;
     private Button playAgainButton;
-    private TextArea playerHandTextArea;
-    private TextArea houseHandTextArea;
+    private TableCanvas table;
 
     @Override
     public void start(Stage primaryStage) {
-        game = new Game();
+        rules = Rules.standard();
+        deck = new Deck();
+        house = new House();
+        seen = new ArrayList<>();
+
+        TextInputDialog nameDialog = new TextInputDialog("Player");
+        nameDialog.setHeaderText("Welcome to the Blackjack game!");
+        nameDialog.setContentText("Please enter your name:");
+        player = new Player(nameDialog.showAndWait().orElse("Player"));
+        player.setEarnings(rules.getInitialBalance());
 
         primaryStage.setTitle("Blackjack Game");
 
@@ -43,8 +81,9 @@ public class MainGameGUI extends Application {
 
         Label betLabel = new Label("Bet Status:");
         betStatusLabel = new Label();
+        hintLabel = new Label();
 
-        gameStatusPane.getChildren().addAll(betLabel, betStatusLabel);
+        gameStatusPane.getChildren().addAll(betLabel, betStatusLabel, hintLabel);
 
         // Button Pane
         HBox buttonPane = new HBox();
@@ -68,15 +107,9 @@ public class MainGameGUI extends Application {
         cardPane.setAlignment(Pos.CENTER);
         cardPane.setSpacing(10);
 
-        playerHandTextArea = new TextArea();
-        playerHandTextArea.setEditable(false);
-        playerHandTextArea.setPrefRowCount(4);
+        table = new TableCanvas();
 
-        houseHandTextArea = new TextArea();
-        houseHandTextArea.setEditable(false);
-        houseHandTextArea.setPrefRowCount(4);
-
-        cardPane.getChildren().addAll(playerHandTextArea, houseHandTextArea);
+        cardPane.getChildren().add(table);
 
         // Root Pane
         VBox rootPane = new VBox();
@@ -86,42 +119,176 @@ public class MainGameGUI extends Application {
 
         rootPane.getChildren().addAll(playerInfoPane, gameStatusPane, buttonPane, cardPane);
 
-        Scene scene = new Scene(rootPane, 400, 400);
+        Scene scene = new Scene(rootPane, 440, 420);
         primaryStage.setScene(scene);
         primaryStage.show();
 
         // Event Handlers
         hitButton.setOnAction(e -> {
-            game.playerTurn();
-            updateGUI();
+            playerTurn();
             checkGameStatus();
+            updateGUI();
+            updateHint();
         });
 
         stayButton.setOnAction(e -> {
-            game.houseTurn();
-            updateGUI();
+            houseTurn();
             determineWinner();
             checkGameStatus();
+            updateGUI();
+            updateHint();
         });
 
         playAgainButton.setOnAction(e -> {
-            game.start();
+            startRound();
+            checkGameStatus();
             updateGUI();
+            updateHint();
         });
 
+        // Load the strategy tables off the UI thread; the first run computes and caches them
+        Thread loader = new Thread(() -> {
+            try {
+                HintService service = new HintService(StrategyTables.load(new File("strategy_cache"), rules, 1));
+                Platform.runLater(() -> {
+                    // Catch up on the cards dealt from this shoe while the tables loaded
+                    for (Card card : seen) {
+                        service.cardSeen(card);
+                    }
+                    hints = service;
+                    updateHint();
+                });
+            } catch (IOException e) {
+                Platform.runLater(() -> hintLabel.setText("Hints unavailable"));
+            }
+        }, "hint-tables");
+        loader.setDaemon(true);
+        loader.start();
+
         // Start the game
-        game.start();
+        startRound();
+        checkGameStatus();
         updateGUI();
+        updateHint();
     }
 
-    private void updateGUI() {
-        Player player = game.getPlayer();
-        House house = game.getHouse();
+    private void startRound() {
+        player.clearHand();
+        house.clearHand();
+        if (player.getEarnings() < rules.getMinBet()) {
+            roundOver = true;
+            betStatusLabel.setText("Insufficient earnings to place a bet. Game over!");
+            return;
+        }
+        if (deck.size() < RESHUFFLE_AT) {
+            deck.reset();
+            seen.clear();
+            if (hints != null) {
+                hints.reset();
+            }
+        }
+
+        bet = rules.getMinBet();
+        player.setEarnings(player.getEarnings() - bet);
+        player.getHands().get(0).setBet(bet);
+        roundOver = false;
+        betStatusLabel.setText("$" + bet + " bet");
+        for (int i = 0; i < 2; i++) {
+            player.addCardToHand(deal());
+            house.addCardToHand(i == 0 ? deal() : deck.dealCard());
+        }
+        if (player.getHands().get(0).isBlackjack()) {
+            houseTurn();
+            determineWinner();
+        }
+    }
+
+    /** Deals a card everyone at the table sees; the hole card is dealt directly and seen when revealed. */
+    private Card deal() {
+        Card card = deck.dealCard();
+        seen.add(card);
+        if (hints != null) {
+            hints.cardSeen(card);
+        }
+        return card;
+    }
+
+    private void playerTurn() {
+        player.addCardToHand(deal());
+        if (player.calculateHandValue() > 21) {
+            betStatusLabel.setText("Busted! You lose.");
+            houseTurn();
+            roundOver = true;
+        } else if (player.calculateHandValue() == 21) {
+            houseTurn();
+            determineWinner();
+        }
+    }
+
+    private void houseTurn() {
+        Card hole = house.getHand().get(1);
+        seen.add(hole);
+        if (hints != null) {
+            hints.cardSeen(hole);
+        }
+        // A bust or a blackjack is settled against the dealer's first two cards
+        if (player.calculateHandValue() > 21 || player.getHands().get(0).isBlackjack()) {
+            return;
+        }
+        while (rules.dealerHits(house.getPlayingHand())) {
+            house.addCardToHand(deal());
+        }
+    }
+
+    private void determineWinner() {
+        Hand hand = player.getHands().get(0);
+        int playerHandValue = player.calculateHandValue();
+        int houseHandValue = house.calculateHandValue();
+        boolean houseBlackjack = house.getPlayingHand().isBlackjack();
+        if (hand.isBlackjack() && !houseBlackjack) {
+            betStatusLabel.setText("Blackjack! You win!");
+            player.setEarnings(player.getEarnings() + bet + rules.blackjackWinnings(bet));
+        } else if (houseBlackjack && !hand.isBlackjack()) {
+            betStatusLabel.setText("Sorry! You lost!");
+        } else if (houseHandValue > 21 || playerHandValue > houseHandValue) {
+            betStatusLabel.setText("Congratulations! You won!");
+            player.setEarnings(player.getEarnings() + 2 * bet);
+        } else if (playerHandValue < houseHandValue) {
+            betStatusLabel.setText("Sorry! You lost!");
+        } else {
+            betStatusLabel.setText("It's a push!");
+            player.setEarnings(player.getEarnings() + bet);
+        }
+        roundOver = true;
+    }
+
+    private void checkGameStatus() {
+        hitButton.setDisable(roundOver);
+        stayButton.setDisable(roundOver);
+        playAgainButton.setDisable(!roundOver || player.getEarnings() < rules.getMinBet());
+        if (roundOver && player.getEarnings() < rules.getMinBet()) {
+            betStatusLabel.setText(betStatusLabel.getText() + " Game over!");
+        }
+    }
 
+    /** Hints come from the composition tracked since the last reshuffle, without the hidden hole card. */
+    private void updateHint() {
+        if (hints == null || hitButton.isDisabled()) {
+            hintLabel.setText("");
+            return;
+        }
+        Action hint = hints.bestAction(player.getHands().get(0), house.getUpcard(),
+                Action.HIT.mask() | Action.STAY.mask());
+        hintLabel.setText(String.format("Hint: %s (hit %+.2f, stay %+.2f)", hint.getLabel(), hints.getHitValue(),
+                hints.getStayValue()));
+    }
+
+    private void updateGUI() {
         playerNameLabel.setText(player.getName());
         earningsLabel.setText("Earnings: $" + player.getEarnings());
 
-        StringBuilder playerHand = new StringBuilder();
-        for (Card card : player.getHand()) {
-            playerHand.append(card.toString()).append("\n");
-        }
\ No newline at end of file
+        // The hole card stays face down while the player can still act
+        table.show(house.getHand(), player.getHand(), roundOver, house.calculateHandValue(),
+                player.calculateHandValue());
+    }
+}
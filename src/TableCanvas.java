@@ -0,0 +1,205 @@
+import com.blackjack.Card;
+import java.util.Arrays;
+import java.util.List;
+import javafx.animation.AnimationTimer;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * Draws the house's and the player's hands on a canvas. Card faces are
+ * rendered once into a shared sprite atlas, so drawing a card is one image
+ * copy. {@link #show} only records what should be on the table; an
+ * animation timer paints at most once per frame and only repaints the part
+ * of a row from the first card that changed, so autoplay can push updates
+ * much faster than the screen refreshes. {@link #show} must be called on the
+ * FX thread.
+ */
+public class TableCanvas extends Canvas {
+    static final double CARD_WIDTH = 60;
+    static final double CARD_HEIGHT = 84;
+    static final double CARD_STEP = 28;
+    static final double MARGIN = 10;
+    static final double LABEL_HEIGHT = 18;
+    static final int MAX_CARDS = 12;
+
+    private static final int RANKS = 13;
+    private static final int BACK = 4 * RANKS;
+    private static final int EMPTY = -1;
+    private static final Color FELT = Color.rgb(21, 96, 55);
+    private static final String[] RANK_LABELS = { "2", "3", "4", "5", "6", "7", "8", "9", "10", "J", "Q", "K", "A" };
+    private static final String[] SUIT_SYMBOLS = { "♣", "♦", "♥", "♠" };
+
+    private static Image atlas;
+
+    private final int[] painted = new int[2 * MAX_CARDS];
+    private final int[] wanted = new int[2 * MAX_CARDS];
+    private final int[] paintedTotals = new int[2];
+    private final int[] wantedTotals = new int[2];
+    private final AnimationTimer painter;
+    private boolean dirty;
+    private boolean running;
+
+    public TableCanvas() {
+        super(2 * MARGIN + CARD_WIDTH + (MAX_CARDS - 1) * CARD_STEP,
+                2 * (LABEL_HEIGHT + CARD_HEIGHT + MARGIN) + MARGIN);
+        Arrays.fill(painted, EMPTY);
+        Arrays.fill(wanted, EMPTY);
+        Arrays.fill(paintedTotals, -1);
+        Arrays.fill(wantedTotals, -1);
+        GraphicsContext g = getGraphicsContext2D();
+        g.setFill(FELT);
+        g.fillRect(0, 0, getWidth(), getHeight());
+        paintLabel(0, -1);
+        paintLabel(1, -1);
+        painter = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                paint();
+            }
+        };
+    }
+
+    /**
+     * Sets the cards to show. The house's second card stays face down until
+     * {@code revealHole}; the house total is only shown once it is revealed.
+     */
+    public void show(List<Card> house, List<Card> player, boolean revealHole, int houseTotal, int playerTotal) {
+        fill(0, house, revealHole);
+        fill(1, player, true);
+        wantedTotals[0] = revealHole ? houseTotal : -1;
+        wantedTotals[1] = player.isEmpty() ? -1 : playerTotal;
+        dirty = true;
+        if (!running) {
+            running = true;
+            painter.start();
+        }
+    }
+
+    private void fill(int row, List<Card> cards, boolean revealHole) {
+        int base = row * MAX_CARDS;
+        int count = Math.min(cards.size(), MAX_CARDS);
+        for (int i = 0; i < count; i++) {
+            Card card = cards.get(i);
+            wanted[base + i] = i == 1 && !revealHole ? BACK : card.getCode();
+        }
+        Arrays.fill(wanted, base + count, base + MAX_CARDS, EMPTY);
+    }
+
+    private void paint() {
+        if (!dirty) {
+            running = false;
+            painter.stop();
+            return;
+        }
+        dirty = false;
+        for (int row = 0; row < 2; row++) {
+            paintRow(row);
+            if (wantedTotals[row] != paintedTotals[row]) {
+                paintLabel(row, wantedTotals[row]);
+                paintedTotals[row] = wantedTotals[row];
+            }
+        }
+    }
+
+    /** Repaints a row from the first changed card on; later cards overlap earlier ones. */
+    private void paintRow(int row) {
+        int base = row * MAX_CARDS;
+        int first = 0;
+        while (first < MAX_CARDS && painted[base + first] == wanted[base + first]) {
+            first++;
+        }
+        if (first == MAX_CARDS) {
+            return;
+        }
+        // The card before the change shows through where a removed card was
+        int from = Math.max(0, first - 1);
+        double x = MARGIN + from * CARD_STEP;
+        double y = rowTop(row) + LABEL_HEIGHT;
+        GraphicsContext g = getGraphicsContext2D();
+        g.setFill(FELT);
+        g.fillRect(x, y, getWidth() - x, CARD_HEIGHT);
+
+        Image sprites = atlas();
+        for (int i = from; i < MAX_CARDS && wanted[base + i] != EMPTY; i++) {
+            int sprite = wanted[base + i];
+            g.drawImage(sprites, (sprite % RANKS) * CARD_WIDTH, (sprite / RANKS) * CARD_HEIGHT, CARD_WIDTH,
+                    CARD_HEIGHT, MARGIN + i * CARD_STEP, y, CARD_WIDTH, CARD_HEIGHT);
+        }
+        System.arraycopy(wanted, base, painted, base, MAX_CARDS);
+    }
+
+    private void paintLabel(int row, int total) {
+        GraphicsContext g = getGraphicsContext2D();
+        double y = rowTop(row);
+        g.setFill(FELT);
+        g.fillRect(0, y, getWidth(), LABEL_HEIGHT);
+        g.setFill(Color.WHITE);
+        g.setFont(Font.font("System", FontWeight.BOLD, 13));
+        g.setTextAlign(TextAlignment.LEFT);
+        String name = row == 0 ? "House" : "Player";
+        g.fillText(total < 0 ? name : name + ": " + total, MARGIN, y + LABEL_HEIGHT - 5);
+    }
+
+    private static double rowTop(int row) {
+        return MARGIN + row * (LABEL_HEIGHT + CARD_HEIGHT + MARGIN);
+    }
+
+    /** The shared sprite atlas: one row of thirteen ranks per suit, then the card back. */
+    static Image atlas() {
+        if (atlas == null) {
+            Canvas sheet = new Canvas(RANKS * CARD_WIDTH, 5 * CARD_HEIGHT);
+            GraphicsContext g = sheet.getGraphicsContext2D();
+            for (int suit = 0; suit < 4; suit++) {
+                for (int rank = 0; rank < RANKS; rank++) {
+                    drawFace(g, rank * CARD_WIDTH, suit * CARD_HEIGHT, rank, suit);
+                }
+            }
+            drawBack(g, 0, 4 * CARD_HEIGHT);
+            SnapshotParameters parameters = new SnapshotParameters();
+            parameters.setFill(Color.TRANSPARENT);
+            atlas = sheet.snapshot(parameters, null);
+        }
+        return atlas;
+    }
+
+    private static void drawFace(GraphicsContext g, double x, double y, int rank, int suit) {
+        g.setFill(Color.WHITE);
+        g.fillRoundRect(x + 1, y + 1, CARD_WIDTH - 2, CARD_HEIGHT - 2, 8, 8);
+        g.setStroke(Color.DIMGRAY);
+        g.strokeRoundRect(x + 1, y + 1, CARD_WIDTH - 2, CARD_HEIGHT - 2, 8, 8);
+
+        boolean red = suit == 1 || suit == 2;
+        g.setFill(red ? Color.CRIMSON : Color.BLACK);
+        g.setFont(Font.font("System", FontWeight.BOLD, 13));
+        g.setTextAlign(TextAlignment.LEFT);
+        g.fillText(RANK_LABELS[rank], x + 5, y + 16);
+        g.fillText(SUIT_SYMBOLS[suit], x + 5, y + 30);
+        g.setFont(Font.font("System", 30));
+        g.setTextAlign(TextAlignment.CENTER);
+        g.fillText(SUIT_SYMBOLS[suit], x + CARD_WIDTH / 2, y + CARD_HEIGHT / 2 + 14);
+    }
+
+    private static void drawBack(GraphicsContext g, double x, double y) {
+        g.setFill(Color.WHITE);
+        g.fillRoundRect(x + 1, y + 1, CARD_WIDTH - 2, CARD_HEIGHT - 2, 8, 8);
+        g.setFill(Color.rgb(30, 60, 140));
+        g.fillRoundRect(x + 5, y + 5, CARD_WIDTH - 10, CARD_HEIGHT - 10, 6, 6);
+        g.save();
+        g.beginPath();
+        g.rect(x + 5, y + 5, CARD_WIDTH - 10, CARD_HEIGHT - 10);
+        g.clip();
+        g.setStroke(Color.rgb(200, 210, 235));
+        for (double d = -CARD_HEIGHT; d < CARD_WIDTH; d += 10) {
+            g.strokeLine(x + d, y, x + d + CARD_HEIGHT, y + CARD_HEIGHT);
+        }
+        g.restore();
+        g.setStroke(Color.DIMGRAY);
+        g.strokeRoundRect(x + 1, y + 1, CARD_WIDTH - 2, CARD_HEIGHT - 2, 8, 8);
+    }
+}
@@ -0,0 +1,187 @@
+package com.blackjack;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Player accounts stored as {@code <directory>/<name>.txt} (name, pin and
+ * balance on three lines, the format Main has always used), safe to share
+ * between tables in one process and between processes.
+ *
+ * <p>Accounts are guarded by lock striping: the name's hash picks one of
+ * {@value #STRIPES} stripes, and each stripe is a {@link ReentrantLock} for
+ * threads in this process plus a one-byte region lock at the same offset in
+ * {@code .lock} for other processes. Different accounts almost always land
+ * on different stripes and update in parallel; updates to one account are
+ * serialized. Balance changes are applied as deltas to the stored value, so
+ * two sessions for the same player both count, and every write goes to a
+ * temporary file that is atomically renamed over the account.
+ */
+public class AccountStore implements AutoCloseable {
+
+    public static final int STRIPES = 64;
+
+    private static final String LOCK_FILE = ".lock";
+
+    /** An immutable snapshot of one account. */
+    public static class Account {
+        private String name;
+        private String pinCode;
+        private int balance;
+
+        Account(String name, String pinCode, int balance) {
+            this.name = name;
+            this.pinCode = pinCode;
+            this.balance = balance;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getPinCode() {
+            return pinCode;
+        }
+
+        public int getBalance() {
+            return balance;
+        }
+    }
+
+    private File directory;
+    private ReentrantLock[] locks;
+    private FileChannel lockChannel;
+
+    public AccountStore(File directory) throws IOException {
+        this.directory = directory;
+        directory.mkdirs();
+        this.locks = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.lockChannel = new RandomAccessFile(new File(directory, LOCK_FILE), "rw").getChannel();
+    }
+
+    /** The stored account, or null if there is none. */
+    public Account load(String name) throws IOException {
+        int stripe = stripe(name);
+        locks[stripe].lock();
+        try {
+            FileLock fileLock = lockRegion(stripe, true);
+            try {
+                return read(name);
+            } finally {
+                fileLock.release();
+            }
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    /** Creates the account unless one with this name exists; returns whether it was created. */
+    public boolean create(String name, String pinCode, int balance) throws IOException {
+        int stripe = stripe(name);
+        locks[stripe].lock();
+        try {
+            FileLock fileLock = lockRegion(stripe, false);
+            try {
+                if (file(name).exists()) {
+                    return false;
+                }
+                write(new Account(name, pinCode, balance));
+                return true;
+            } finally {
+                fileLock.release();
+            }
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    /** Adds {@code delta} to the stored balance and returns the updated account. */
+    public Account adjustBalance(String name, int delta) throws IOException {
+        int stripe = stripe(name);
+        locks[stripe].lock();
+        try {
+            FileLock fileLock = lockRegion(stripe, false);
+            try {
+                Account account = read(name);
+                if (account == null) {
+                    throw new IOException("No account for " + name);
+                }
+                Account updated = new Account(account.name, account.pinCode, account.balance + delta);
+                write(updated);
+                return updated;
+            } finally {
+                fileLock.release();
+            }
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lockChannel.close();
+    }
+
+    /**
+     * Takes the stripe's region of the lock file. This polls with tryLock
+     * rather than blocking in lock(), because the kernel tracks region locks
+     * per process and reports a false deadlock when two processes each
+     * have threads waiting on the other's stripes.
+     */
+    private FileLock lockRegion(int stripe, boolean shared) throws IOException {
+        long backoff = 1_000;
+        while (true) {
+            FileLock fileLock = lockChannel.tryLock(stripe, 1, shared);
+            if (fileLock != null) {
+                return fileLock;
+            }
+            LockSupport.parkNanos(backoff);
+            backoff = Math.min(2 * backoff, 1_000_000);
+        }
+    }
+
+    private static int stripe(String name) {
+        int hash = name.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private File file(String name) {
+        return new File(directory, name + ".txt");
+    }
+
+    private Account read(String name) throws IOException {
+        File file = file(name);
+        if (!file.exists()) {
+            return null;
+        }
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        if (lines.size() < 3) {
+            throw new IOException("Corrupt account file " + file);
+        }
+        return new Account(lines.get(0), lines.get(1), Integer.parseInt(lines.get(2).trim()));
+    }
+
+    private void write(Account account) throws IOException {
+        File temp = File.createTempFile("account-", ".tmp", directory);
+        try {
+            String contents = account.name + "\n" + account.pinCode + "\n" + account.balance + "\n";
+            Files.write(temp.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+            Files.move(temp.toPath(), file(account.name).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            temp.delete();
+        }
+    }
+}
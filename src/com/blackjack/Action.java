@@ -0,0 +1,46 @@
+package com.blackjack;
+
+public enum Action {
+    HIT('h', "hit"), STAY('s', "stay"), DOUBLE('d', "double"), SPLIT('p', "split"), SURRENDER('r', "surrender");
+
+    private char code;
+    private String label;
+
+    Action(char code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    public char getCode() {
+        return code;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    public boolean isAllowed(int allowedActions) {
+        return (allowedActions & mask()) != 0;
+    }
+
+    public static Action fromCode(char code) {
+        switch (Character.toLowerCase(code)) {
+            case 'h':
+                return HIT;
+            case 's':
+                return STAY;
+            case 'd':
+                return DOUBLE;
+            case 'p':
+                return SPLIT;
+            case 'r':
+                return SURRENDER;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package com.blackjack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs many betting sessions from a starting stake and reports risk of ruin
+ * and the spread of bankrolls over time for several betting progressions.
+ *
+ * <p>Two variance reduction techniques are used. Every progression in a
+ * session bets into the same sequence of rounds (common random numbers), so
+ * differences between progressions are not swamped by card luck. Sessions
+ * come in antithetic pairs that deal the same shuffled shoes, with the
+ * player's and the dealer's starting cards swapped in the second session.
+ * Either assignment is equally likely, so each half is an unbiased session,
+ * but a starting deal that favours one seat favours the other seat in the
+ * mirror, so the pair's results are negatively correlated. Shoes are
+ * shuffled eagerly, so both halves of a pair shuffle every shoe from the same
+ * random draws however the hands played out.
+ * The report prints the measured gain of each technique against plain
+ * independent runs.
+ *
+ * <p>The player uses a simplified basic strategy (hit/stand, doubling on 9
+ * to 11, no splits) and Hi-Lo counts the shoe for the Kelly progression.
+ */
+public class BankrollSimulator {
+
+    public enum Progression {
+        FLAT {
+            @Override
+            int nextBet(int bankroll, int lastBet, double lastNet, int trueCount, int minBet, int maxBet) {
+                return minBet;
+            }
+        },
+        MARTINGALE {
+            @Override
+            int nextBet(int bankroll, int lastBet, double lastNet, int trueCount, int minBet, int maxBet) {
+                return lastNet < 0 ? Math.min(2 * lastBet, maxBet) : minBet;
+            }
+        },
+        KELLY {
+            @Override
+            int nextBet(int bankroll, int lastBet, double lastNet, int trueCount, int minBet, int maxBet) {
+                double edge = BASE_EDGE + EDGE_PER_COUNT * trueCount;
+                if (edge <= 0) {
+                    return minBet;
+                }
+                return Math.max(minBet, Math.min(maxBet, (int) (bankroll * edge / HAND_VARIANCE)));
+            }
+        };
+
+        abstract int nextBet(int bankroll, int lastBet, double lastNet, int trueCount, int minBet, int maxBet);
+    }
+
+    private static final double BASE_EDGE = -0.005;
+    private static final double EDGE_PER_COUNT = 0.005;
+    private static final double HAND_VARIANCE = 1.33;
+    private static final double PENETRATION = 0.75;
+    private static final int CHECKPOINTS = 10;
+
+    private Rules rules;
+    private int decks;
+    private int rounds;
+    private int stake;
+    private int minBet;
+    private int maxBet;
+    private double blackjackPays;
+
+    public BankrollSimulator(Rules rules, int decks, int rounds, int stake, int minBet, int maxBet) {
+        if (rounds < CHECKPOINTS) {
+            throw new IllegalArgumentException("Sessions need at least " + CHECKPOINTS + " rounds");
+        }
+        this.rules = rules;
+        this.decks = decks;
+        this.rounds = rounds;
+        this.stake = stake;
+        this.minBet = minBet;
+        this.maxBet = maxBet;
+        this.blackjackPays = (double) rules.getBlackjackNumerator() / rules.getBlackjackDenominator();
+    }
+
+    /** Result rows are indexed by session; columns by progression then checkpoint. */
+    public static class Report {
+        private int sessions;
+        private int[][] bankrolls;
+        private boolean[][] ruined;
+
+        Report(int sessions) {
+            this.sessions = sessions;
+            this.bankrolls = new int[sessions][Progression.values().length * CHECKPOINTS];
+            this.ruined = new boolean[sessions][Progression.values().length];
+        }
+
+        public double riskOfRuin(Progression progression) {
+            int count = 0;
+            for (int s = 0; s < sessions; s++) {
+                if (ruined[s][progression.ordinal()]) {
+                    count++;
+                }
+            }
+            return (double) count / sessions;
+        }
+
+        public int bankroll(int session, Progression progression, int checkpoint) {
+            return bankrolls[session][progression.ordinal() * CHECKPOINTS + checkpoint];
+        }
+
+        public int percentile(Progression progression, int checkpoint, double fraction) {
+            int[] values = new int[sessions];
+            for (int s = 0; s < sessions; s++) {
+                values[s] = bankroll(s, progression, checkpoint);
+            }
+            Arrays.sort(values);
+            return values[Math.min(sessions - 1, (int) (fraction * sessions))];
+        }
+
+        double finalBankroll(int session, Progression progression) {
+            return bankroll(session, progression, CHECKPOINTS - 1);
+        }
+    }
+
+    public Report run(int pairs, int threads, long seed) throws InterruptedException {
+        Report report = new Report(2 * pairs);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        RandomStreams streams = new RandomStreams(RandomAlgorithm.XOSHIRO256PP, seed);
+        List<Future<?>> futures = new ArrayList<>();
+        int chunk = (pairs + threads - 1) / threads;
+        for (int from = 0; from < pairs; from += chunk) {
+            int start = from;
+            int end = Math.min(pairs, from + chunk);
+            futures.add(pool.submit(() -> {
+                Rounds shared = new Rounds(rounds);
+                for (int pair = start; pair < end; pair++) {
+                    shared.generate(streams.stream(pair), false);
+                    playSession(shared, report, 2 * pair);
+                    shared.generate(streams.stream(pair), true);
+                    playSession(shared, report, 2 * pair + 1);
+                }
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation worker failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return report;
+    }
+
+    private void playSession(Rounds session, Report report, int row) {
+        int interval = rounds / CHECKPOINTS;
+        for (Progression progression : Progression.values()) {
+            int bankroll = stake;
+            int bet = minBet;
+            double net = 0;
+            int column = progression.ordinal() * CHECKPOINTS;
+            boolean ruined = false;
+            for (int round = 0; round < rounds; round++) {
+                if (!ruined) {
+                    bet = Math.min(bankroll, progression.nextBet(bankroll, bet, net, session.counts[round], minBet,
+                            maxBet));
+                    net = session.nets[round];
+                    bankroll = Math.max(0, bankroll + (int) Math.round(bet * net));
+                    ruined = bankroll < minBet;
+                }
+                if ((round + 1) % interval == 0 && (round + 1) / interval <= CHECKPOINTS) {
+                    report.bankrolls[row][column + (round + 1) / interval - 1] = bankroll;
+                }
+            }
+            report.ruined[row][progression.ordinal()] = ruined;
+        }
+    }
+
+    /** The per-unit result and pre-deal true count of each round of one session. */
+    private class Rounds {
+        private float[] nets;
+        private byte[] counts;
+        private Deck deck;
+        private boolean swapped;
+        private int runningCount;
+
+        Rounds(int rounds) {
+            this.nets = new float[rounds];
+            this.counts = new byte[rounds];
+        }
+
+        void generate(RandomSource random, boolean swapped) {
+            this.deck = new Deck(decks, random, ShuffleMode.EAGER);
+            this.swapped = swapped;
+            runningCount = 0;
+            for (int round = 0; round < nets.length; round++) {
+                if (deck.size() < deck.capacity() * (1 - PENETRATION)) {
+                    deck.reset();
+                    runningCount = 0;
+                }
+                double decksLeft = Math.max(0.5, deck.size() / (double) Card.DECK_SIZE);
+                counts[round] = (byte) Math.max(-100, Math.min(100, Math.round(runningCount / decksLeft)));
+                nets[round] = (float) playRound();
+            }
+        }
+
+        private double playRound() {
+            int first = draw();
+            int second = draw();
+            int third = draw();
+            int fourth = draw();
+            int player1 = swapped ? second : first;
+            int upcard = swapped ? first : second;
+            int player2 = swapped ? fourth : third;
+            int hole = swapped ? third : fourth;
+
+            int hard = player1 + player2;
+            boolean ace = player1 == 1 || player2 == 1;
+            boolean playerBlackjack = ace && hard == 11;
+            boolean dealerBlackjack = (upcard == 1 && hole == 10) || (upcard == 10 && hole == 1);
+            if (dealerBlackjack) {
+                return playerBlackjack ? 0 : -1;
+            }
+            if (playerBlackjack) {
+                return blackjackPays;
+            }
+
+            int stakeUnits = 1;
+            boolean soft = ace && hard + 10 <= 21;
+            if (!soft && (hard == 11 || (hard == 10 && upcard >= 2 && upcard <= 9)
+                    || (hard == 9 && upcard >= 3 && upcard <= 6))) {
+                stakeUnits = 2;
+                int rank = draw();
+                hard += rank;
+                ace |= rank == 1;
+            } else {
+                while (shouldHit(ace && hard + 10 <= 21, ace && hard + 10 <= 21 ? hard + 10 : hard, upcard)) {
+                    int rank = draw();
+                    hard += rank;
+                    ace |= rank == 1;
+                }
+            }
+            if (hard > 21) {
+                return -stakeUnits;
+            }
+            int total = ace && hard + 10 <= 21 ? hard + 10 : hard;
+
+            int dealerHard = upcard + hole;
+            boolean dealerAce = upcard == 1 || hole == 1;
+            while (true) {
+                boolean dealerSoft = dealerAce && dealerHard + 10 <= 21;
+                if (!rules.dealerHits(dealerSoft ? dealerHard + 10 : dealerHard, dealerSoft)) {
+                    break;
+                }
+                int rank = draw();
+                dealerHard += rank;
+                dealerAce |= rank == 1;
+            }
+            int dealer = dealerAce && dealerHard + 10 <= 21 ? dealerHard + 10 : dealerHard;
+            if (dealer > 21 || total > dealer) {
+                return stakeUnits;
+            }
+            return total == dealer ? 0 : -stakeUnits;
+        }
+
+        private boolean shouldHit(boolean soft, int total, int upcard) {
+            int up = upcard == 1 ? 11 : upcard;
+            if (soft) {
+                return total <= 17 || (total == 18 && up >= 9);
+            }
+            if (total >= 17) {
+                return false;
+            }
+            if (total >= 13) {
+                return up >= 7;
+            }
+            if (total == 12) {
+                return up < 4 || up >= 7;
+            }
+            return true;
+        }
+
+        /** Deals one card and returns its hard points, updating the Hi-Lo running count. */
+        private int draw() {
+            Card card = deck.dealCard();
+            int points = card.getHardPoints();
+            if (points >= 2 && points <= 6) {
+                runningCount++;
+            } else if (points == 1 || points == 10) {
+                runningCount--;
+            }
+            return points;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int pairs = 50_000;
+        int rounds = 1_000;
+        int decks = 6;
+        Rules rules = Rules.standard();
+        int stake = 10 * rules.getInitialBalance();
+        int maxBet = 50 * rules.getMinBet();
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sessions":
+                    pairs = Math.max(1, Integer.parseInt(args[++i]) / 2);
+                    break;
+                case "--rounds":
+                    rounds = Integer.parseInt(args[++i]);
+                    break;
+                case "--decks":
+                    decks = Integer.parseInt(args[++i]);
+                    break;
+                case "--stake":
+                    stake = Integer.parseInt(args[++i]);
+                    break;
+                case "--max-bet":
+                    maxBet = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    System.out.println("Unknown option: " + args[i]);
+                    return;
+            }
+        }
+
+        BankrollSimulator simulator = new BankrollSimulator(rules, decks, rounds, stake, rules.getMinBet(),
+                maxBet);
+        long started = System.nanoTime();
+        Report report = simulator.run(pairs, threads, seed);
+        long elapsed = System.nanoTime() - started;
+
+        System.out.printf("Sessions:    %,d x %,d rounds from $%d (%d decks, bets $%d-$%d) in %.2f s%n",
+                2 * pairs, rounds, stake, decks, rules.getMinBet(), maxBet, elapsed / 1e9);
+        for (Progression progression : Progression.values()) {
+            double ruin = report.riskOfRuin(progression);
+            System.out.printf("%n%-10s  risk of ruin %.2f%% (+/- %.2f%%)%n", progression, 100 * ruin,
+                    100 * Math.sqrt(ruin * (1 - ruin) / report.sessions));
+            System.out.println("   round       p5      p25      p50      p75      p95");
+            for (int c = 0; c < CHECKPOINTS; c++) {
+                System.out.printf("%8d %8d %8d %8d %8d %8d%n", (c + 1) * (rounds / CHECKPOINTS),
+                        report.percentile(progression, c, 0.05), report.percentile(progression, c, 0.25),
+                        report.percentile(progression, c, 0.5), report.percentile(progression, c, 0.75),
+                        report.percentile(progression, c, 0.95));
+            }
+        }
+
+        System.out.println();
+        System.out.println("Variance reduction (standard error of the mean final bankroll):");
+        for (Progression progression : Progression.values()) {
+            double independent = Math.sqrt(variance(report, progression, null, false) / report.sessions);
+            double antithetic = Math.sqrt(variance(report, progression, null, true) / pairs);
+            System.out.printf("  %-10s  independent %8.2f  antithetic %8.2f  (%.2fx fewer runs)%n", progression,
+                    independent, antithetic, square(independent / antithetic));
+        }
+        for (Progression progression : Progression.values()) {
+            if (progression == Progression.FLAT) {
+                continue;
+            }
+            double separate = Math.sqrt((variance(report, progression, null, false)
+                    + variance(report, Progression.FLAT, null, false)) / report.sessions);
+            double common = Math.sqrt(variance(report, progression, Progression.FLAT, false) / report.sessions);
+            System.out.printf("  %-10s - FLAT  independent %8.2f  common numbers %8.2f  (%.2fx fewer runs)%n",
+                    progression, separate, common, square(separate / common));
+        }
+    }
+
+    /** Variance of the final bankroll (minus a baseline progression), per session or per antithetic pair mean. */
+    private static double variance(Report report, Progression progression, Progression baseline, boolean paired) {
+        int step = paired ? 2 : 1;
+        int samples = report.sessions / step;
+        double sum = 0;
+        double sumSquares = 0;
+        for (int s = 0; s < samples * step; s += step) {
+            double value = 0;
+            for (int k = 0; k < step; k++) {
+                value += report.finalBankroll(s + k, progression)
+                        - (baseline == null ? 0 : report.finalBankroll(s + k, baseline));
+            }
+            value /= step;
+            sum += value;
+            sumSquares += value * value;
+        }
+        double mean = sum / samples;
+        return sumSquares / samples - mean * mean;
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+}
@@ -1,10 +1,47 @@
 package com.blackjack;
 
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
 public class BlackJack {
 
-	public static void main(String[] args) {
-		Game game = new Game();
-        game.start();
+	public static void main(String[] args) throws IOException {
+		File historyDir = new File("hand_history");
+		historyDir.mkdirs();
+		try (RulesConfig rulesConfig = new RulesConfig(new File("table_rules.properties"));
+				PlayerRollups rollups = new PlayerRollups(new File("player_rollups"));
+				RoundLog roundLog = new RoundLog(new File("game_data"));
+				RoundJournal journal = RoundJournal.claim(new File("round_journal"), RoundJournal.Durability.ROUND);
+				AccountStore accounts = new AccountStore(new File("game_accounts"));
+				HandHistoryCodec.Encoder history = new HandHistoryCodec.Encoder(
+						new File(historyDir, "session-" + System.currentTimeMillis() + ".bjh"))) {
+			if (args.length == 2 && args[0].equals("--batch")) {
+				Reader in = args[1].equals("-") ? new InputStreamReader(System.in) : new FileReader(args[1]);
+				Game game = new Game(new ScriptedDecisions(in));
+				game.setRulesConfig(rulesConfig);
+				game.setRoundLog(roundLog);
+				game.setJournal(journal);
+				game.setAccountStore(accounts);
+				game.addRoundListener(rollups);
+				game.addRoundListener(history);
+				game.start();
+				return;
+			}
+
+			Game game = new Game();
+			game.setRulesConfig(rulesConfig);
+			int decks = game.getDeck().capacity() / Card.DECK_SIZE;
+			game.setHintService(new HintService(StrategyTables.load(new File("strategy_cache"), game.getRules(), decks)));
+			game.setRoundLog(roundLog);
+			game.setJournal(journal);
+			game.setAccountStore(accounts);
+			game.addRoundListener(rollups);
+			game.addRoundListener(history);
+	        game.start();
+		}
 	}
 
 }
@@ -1,6 +1,10 @@
 package com.blackjack;
 
-
+/**
+ * Cards are flyweights: the 52 instances are created once and shared by
+ * every deck and hand. Each card has a byte code, suit ordinal * 13 + value
+ * ordinal, that indexes the canonical set and the per-code lookup tables.
+ */
 public class Card {
 	public enum Suit { CLUBS, DIAMONDS, HEARTS, SPADES }
     public enum Value { TWO(2), THREE(3), FOUR(4), FIVE(5), SIX(6), SEVEN(7), EIGHT(8), NINE(9), TEN(10),
@@ -17,12 +21,42 @@ public class Card {
         }
     }
 
-    private Suit suit;
-    private Value value;
+    public static final int DECK_SIZE = 52;
+
+    private static final Suit[] SUITS = Suit.values();
+    private static final Value[] VALUES = Value.values();
+    private static final String[] SUIT_SYMBOLS = { "\u2663", "\u2666", "\u2665", "\u2660" };
+    private static final String[] RANK_LABELS = { "2", "3", "4", "5", "6", "7", "8", "9", "10", "J", "Q", "K", "A" };
+    private static final Card[] CARDS = new Card[DECK_SIZE];
+
+    static {
+        for (int code = 0; code < DECK_SIZE; code++) {
+            CARDS[code] = new Card(SUITS[code / VALUES.length], VALUES[code % VALUES.length], (byte) code);
+        }
+    }
+
+    private final Suit suit;
+    private final Value value;
+    private final byte code;
+    private final int hardPoints;
+    private final String name;
+    private final String label;
 
-    public Card(Suit suit, Value value) {
+    private Card(Suit suit, Value value, byte code) {
         this.suit = suit;
         this.value = value;
+        this.code = code;
+        this.hardPoints = value == Value.ACE ? 1 : value.getNumericValue();
+        this.name = value + " of " + suit;
+        this.label = RANK_LABELS[value.ordinal()] + " of " + SUIT_SYMBOLS[suit.ordinal()];
+    }
+
+    public static Card of(int code) {
+        return CARDS[code];
+    }
+
+    public static Card of(Suit suit, Value value) {
+        return CARDS[suit.ordinal() * VALUES.length + value.ordinal()];
     }
 
     public Suit getSuit() {
@@ -33,10 +67,26 @@ public class Card {
         return value;
     }
 
+    public byte getCode() {
+        return code;
+    }
+
+    /** Blackjack points with an ace counted as one. */
+    public int getHardPoints() {
+        return hardPoints;
+    }
+
+    public boolean isAce() {
+        return value == Value.ACE;
+    }
+
+    /** The short form the console tables print, such as {@code "A of \u2660"}. */
+    public String getLabel() {
+        return label;
+    }
+
     @Override
     public String toString() {
-        return value + " of " + suit;
+        return name;
     }
 }
-
-
@@ -0,0 +1,141 @@
+package com.blackjack;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+
+/**
+ * Command line front end for the columnar round files.
+ *
+ * <pre>
+ * java com.blackjack.ColumnarExport export game_data.txt rounds.bjc
+ * java com.blackjack.ColumnarExport simulate 1000000 rounds.bjc
+ * java com.blackjack.ColumnarExport summary rounds.bjc
+ * </pre>
+ */
+public class ColumnarExport {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("export")) {
+            long rows = exportGameData(new File(args[1]), new File(args[2]));
+            System.out.println("Exported " + rows + " rows to " + args[2]);
+        } else if (args.length == 3 && args[0].equals("simulate")) {
+            simulate(Integer.parseInt(args[1]), new File(args[2]));
+            System.out.println("Simulated " + args[1] + " rounds to " + args[2]);
+        } else if (args.length == 2 && args[0].equals("summary")) {
+            summarize(new File(args[1]));
+        } else {
+            System.out.println("Usage: ColumnarExport export <game_data.txt> <out> | simulate <rounds> <out> | summary <file>");
+        }
+    }
+
+    /** Converts a game_data.txt style log; bets, totals and cards are not in the text log and are left empty. */
+    public static long exportGameData(File gameData, File out) throws IOException {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        String lastPrefix = null;
+        long lastTimestamp = 0;
+        long rows = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(gameData), StandardCharsets.UTF_8), 1 << 16);
+                ColumnarWriter writer = new ColumnarWriter(out)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int player = line.indexOf(" - Player: ");
+                int result = line.lastIndexOf(", Result: ");
+                if (player < 0 || result < player) {
+                    continue;
+                }
+                String prefix = line.substring(0, player);
+                if (!prefix.equals(lastPrefix)) {
+                    try {
+                        lastTimestamp = dateFormat.parse(prefix).getTime();
+                    } catch (ParseException e) {
+                        continue;
+                    }
+                    lastPrefix = prefix;
+                }
+                Outcome outcome = parseOutcome(line.substring(result + ", Result: ".length()).trim());
+                if (outcome == null) {
+                    continue;
+                }
+                writer.appendRow(lastTimestamp, line.substring(player + " - Player: ".length(), result), 0, 0, 0, 0,
+                        outcome, null, null);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    public static void simulate(int rounds, File out) throws IOException {
+        try (ColumnarWriter writer = new ColumnarWriter(out)) {
+            Game game = new Game(new SyntheticPlayer("sim", 10, 50, 17, System.nanoTime()));
+            game.setDataFile(null);
+            game.addRoundListener(writer);
+            game.seatPlayer();
+            for (int i = 0; i < rounds; i++) {
+                Player player = game.getPlayer();
+                if (player.getEarnings() < 1000) {
+                    player.setEarnings(player.getEarnings() + 100_000);
+                }
+                game.playNextRound();
+            }
+        }
+    }
+
+    public static void summarize(File file) throws IOException {
+        try (ColumnarReader reader = new ColumnarReader(file)) {
+            final long[] net = new long[reader.playerCount()];
+            final long[] hands = new long[reader.playerCount()];
+            int largestGroup = 0;
+            for (int g = 0; g < reader.getGroupCount(); g++) {
+                largestGroup = Math.max(largestGroup, reader.getGroupRows(g));
+            }
+            // Player ids are buffered one row group at a time, so memory does not grow with the file
+            final int[] players = new int[largestGroup];
+            final int[] row = {0};
+            long started = System.nanoTime();
+            for (int g = 0; g < reader.getGroupCount(); g++) {
+                row[0] = 0;
+                reader.scanInt("player", g, id -> players[row[0]++] = id);
+                row[0] = 0;
+                reader.scanInt("net", g, value -> {
+                    int id = players[row[0]++];
+                    net[id] += value;
+                    hands[id]++;
+                });
+            }
+            final long[] outcomes = new long[Outcome.values().length];
+            reader.scanInt("outcome", ordinal -> outcomes[ordinal]++);
+            long elapsed = System.nanoTime() - started;
+
+            System.out.println(reader.getRowCount() + " hands, " + reader.playerCount() + " players");
+            for (int id = 0; id < net.length; id++) {
+                System.out.println("  " + reader.playerName(id) + ": " + hands[id] + " hands, net $" + net[id]);
+            }
+            for (Outcome outcome : Outcome.values()) {
+                System.out.println("  " + outcome + ": " + outcomes[outcome.ordinal()]);
+            }
+            System.out.printf("Scanned 3 columns in %.1f ms%n", elapsed / 1e6);
+        }
+    }
+
+    private static Outcome parseOutcome(String label) {
+        switch (label) {
+            case "Win":
+                return Outcome.WIN;
+            case "Loss":
+                return Outcome.LOSS;
+            case "Push":
+                return Outcome.PUSH;
+            case "Surrender":
+                return Outcome.SURRENDER;
+            default:
+                return null;
+        }
+    }
+}
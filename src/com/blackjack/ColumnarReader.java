@@ -0,0 +1,197 @@
+package com.blackjack;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Reads files written by {@link ColumnarWriter}. Each scan reads only the
+ * sections of the requested column, row group by row group.
+ */
+public class ColumnarReader implements AutoCloseable {
+
+    public interface CardsConsumer {
+        void accept(byte[] codes, int offset, int length);
+    }
+
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private String[] players;
+    private int[] groupRows;
+    private long[][] sections;
+    private long rowCount;
+
+    public ColumnarReader(File path) throws IOException {
+        this.file = new RandomAccessFile(path, "r");
+        this.channel = file.getChannel();
+        long length = file.length();
+        file.seek(length - 4);
+        if (length < 16 || file.readInt() != ColumnarWriter.MAGIC) {
+            throw new IOException("Not a columnar round file: " + path);
+        }
+        file.seek(length - 12);
+        file.seek(file.readLong());
+
+        players = new String[file.readInt()];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = file.readUTF();
+        }
+        int columnCount = file.readInt();
+        if (columnCount != ColumnarWriter.COLUMNS.length) {
+            throw new IOException("Unsupported column count " + columnCount + " in " + path);
+        }
+        int groups = file.readInt();
+        groupRows = new int[groups];
+        sections = new long[groups][2 * columnCount];
+        for (int g = 0; g < groups; g++) {
+            groupRows[g] = file.readInt();
+            rowCount += groupRows[g];
+            for (int i = 0; i < sections[g].length; i++) {
+                sections[g][i] = file.readLong();
+            }
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public String playerName(int id) {
+        return players[id];
+    }
+
+    public int playerCount() {
+        return players.length;
+    }
+
+    public int getGroupCount() {
+        return groupRows.length;
+    }
+
+    public int getGroupRows(int group) {
+        return groupRows[group];
+    }
+
+    /** Scans an integer column: player, bet, net, playerTotal, dealerTotal or outcome (an Outcome ordinal). */
+    public void scanInt(String column, IntConsumer consumer) throws IOException {
+        for (int g = 0; g < groupRows.length; g++) {
+            scanInt(column, g, consumer);
+        }
+    }
+
+    /** Scans one row group of an integer column, so callers can line columns up one group at a time. */
+    public void scanInt(String column, int group, IntConsumer consumer) throws IOException {
+        int c = columnIndex(column);
+        ByteBuffer section = readSection(group, c);
+        int rows = groupRows[group];
+        switch (c) {
+            case ColumnarWriter.PLAYER:
+                for (int r = 0; r < rows; r++) {
+                    consumer.accept((int) readVarint(section));
+                }
+                break;
+            case ColumnarWriter.BET:
+            case ColumnarWriter.NET:
+                for (int r = 0; r < rows; r++) {
+                    consumer.accept((int) readSignedVarint(section));
+                }
+                break;
+            case ColumnarWriter.PLAYER_TOTAL:
+            case ColumnarWriter.DEALER_TOTAL:
+                for (int r = 0; r < rows; r++) {
+                    consumer.accept(section.get() & 0xFF);
+                }
+                break;
+            case ColumnarWriter.OUTCOME:
+                for (int r = 0; r < rows; r++) {
+                    long bit = (long) r * 3;
+                    int value = 0;
+                    for (int i = 0; i < 3; i++, bit++) {
+                        if ((section.get((int) (bit >>> 3)) & (1 << (bit & 7))) != 0) {
+                            value |= 1 << i;
+                        }
+                    }
+                    consumer.accept(value);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Column " + column + " is not an integer column");
+        }
+    }
+
+    public void scanTimestamps(LongConsumer consumer) throws IOException {
+        for (int g = 0; g < groupRows.length; g++) {
+            ByteBuffer section = readSection(g, ColumnarWriter.TIMESTAMP);
+            long timestamp = 0;
+            for (int r = 0; r < groupRows[g]; r++) {
+                timestamp += readSignedVarint(section);
+                consumer.accept(timestamp);
+            }
+        }
+    }
+
+    /** Scans "cards" or "dealerCards"; the array passed to the consumer is reused. */
+    public void scanCards(String column, CardsConsumer consumer) throws IOException {
+        int c = columnIndex(column);
+        if (c != ColumnarWriter.CARDS && c != ColumnarWriter.DEALER_CARDS) {
+            throw new IllegalArgumentException("Column " + column + " is not a card column");
+        }
+        for (int g = 0; g < groupRows.length; g++) {
+            ByteBuffer section = readSection(g, c);
+            byte[] bytes = section.array();
+            for (int r = 0; r < groupRows[g]; r++) {
+                int count = section.get() & 0xFF;
+                consumer.accept(bytes, section.position(), count);
+                section.position(section.position() + count);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private ByteBuffer readSection(int group, int column) throws IOException {
+        long offset = sections[group][2 * column];
+        int length = (int) sections[group][2 * column + 1];
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Truncated column section");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static int columnIndex(String column) {
+        for (int i = 0; i < ColumnarWriter.COLUMNS.length; i++) {
+            if (ColumnarWriter.COLUMNS[i].equals(column)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown column " + column);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long readSignedVarint(ByteBuffer in) {
+        long raw = readVarint(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+}
@@ -0,0 +1,208 @@
+package com.blackjack;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes settled hands to a column-oriented file, one row per hand. Rows are
+ * buffered into row groups and each group is written as one section per
+ * column, so a reader only touches the columns it asks for. Player names are
+ * dictionary encoded, outcomes are packed three bits per row, and integers
+ * are zigzag varints (timestamps as deltas).
+ *
+ * <p>Layout: {@code "BJC1"}, the column sections of every row group, then a
+ * footer with the player dictionary and the section offsets, the footer
+ * offset and a trailing {@code "BJC1"}. See {@link ColumnarReader}.
+ */
+public class ColumnarWriter implements RoundListener, AutoCloseable {
+
+    static final int MAGIC = 0x424a4331;
+    static final String[] COLUMNS = {
+        "timestamp", "player", "bet", "net", "playerTotal", "dealerTotal", "outcome", "cards", "dealerCards"
+    };
+    static final int TIMESTAMP = 0;
+    static final int PLAYER = 1;
+    static final int BET = 2;
+    static final int NET = 3;
+    static final int PLAYER_TOTAL = 4;
+    static final int DEALER_TOTAL = 5;
+    static final int OUTCOME = 6;
+    static final int CARDS = 7;
+    static final int DEALER_CARDS = 8;
+
+    private static final int DEFAULT_ROW_GROUP = 1 << 20;
+
+    private DataOutputStream out;
+    private long position;
+    private int rowGroupSize;
+    private Map<String, Integer> dictionary;
+    private List<String> players;
+    private List<long[]> sections;
+    private List<Integer> groupRows;
+
+    private int rows;
+    private long lastTimestamp;
+    private ByteSink[] columns;
+
+    public ColumnarWriter(File file) throws IOException {
+        this(file, DEFAULT_ROW_GROUP);
+    }
+
+    public ColumnarWriter(File file, int rowGroupSize) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        this.rowGroupSize = rowGroupSize;
+        this.dictionary = new HashMap<>();
+        this.players = new ArrayList<>();
+        this.sections = new ArrayList<>();
+        this.groupRows = new ArrayList<>();
+        this.columns = new ByteSink[COLUMNS.length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new ByteSink();
+        }
+        out.writeInt(MAGIC);
+        position = 4;
+    }
+
+    @Override
+    public synchronized void roundSettled(RoundResult result) {
+        try {
+            append(result);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write columnar row", e);
+        }
+    }
+
+    public synchronized void append(RoundResult result) throws IOException {
+        Outcome[] outcomes = result.getOutcomes();
+        boolean detailed = result.getHandBets().length == outcomes.length;
+        for (int i = 0; i < outcomes.length; i++) {
+            appendRow(result.getTimestamp(), result.getPlayerName(),
+                    detailed ? result.getHandBets()[i] : 0,
+                    detailed ? result.getHandNets()[i] : 0,
+                    detailed ? result.getHandTotals()[i] : 0,
+                    result.getDealerTotal(), outcomes[i],
+                    detailed ? result.getHandCards()[i] : null,
+                    result.getDealerCards());
+        }
+    }
+
+    public synchronized void appendRow(long timestamp, String player, int bet, int net, int playerTotal,
+            int dealerTotal, Outcome outcome, byte[] cards, byte[] dealerCards) throws IOException {
+        Integer id = dictionary.get(player);
+        if (id == null) {
+            id = players.size();
+            dictionary.put(player, id);
+            players.add(player);
+        }
+
+        columns[TIMESTAMP].writeSignedVarint(timestamp - lastTimestamp);
+        lastTimestamp = timestamp;
+        columns[PLAYER].writeVarint(id);
+        columns[BET].writeSignedVarint(bet);
+        columns[NET].writeSignedVarint(net);
+        columns[PLAYER_TOTAL].write(playerTotal);
+        columns[DEALER_TOTAL].write(dealerTotal);
+        columns[OUTCOME].writeBits(rows, outcome.ordinal(), 3);
+        writeCards(columns[CARDS], cards);
+        writeCards(columns[DEALER_CARDS], dealerCards);
+
+        if (++rows == rowGroupSize) {
+            flushRowGroup();
+        }
+    }
+
+    private static void writeCards(ByteSink column, byte[] cards) {
+        int count = cards == null ? 0 : cards.length;
+        column.write(count);
+        for (int i = 0; i < count; i++) {
+            column.write(cards[i]);
+        }
+    }
+
+    private void flushRowGroup() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        long[] offsets = new long[2 * COLUMNS.length];
+        for (int c = 0; c < COLUMNS.length; c++) {
+            offsets[2 * c] = position;
+            offsets[2 * c + 1] = columns[c].size;
+            out.write(columns[c].bytes, 0, columns[c].size);
+            position += columns[c].size;
+            columns[c].size = 0;
+        }
+        sections.add(offsets);
+        groupRows.add(rows);
+        rows = 0;
+        lastTimestamp = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flushRowGroup();
+        long footer = position;
+        out.writeInt(players.size());
+        for (String player : players) {
+            out.writeUTF(player);
+        }
+        out.writeInt(COLUMNS.length);
+        out.writeInt(sections.size());
+        for (int g = 0; g < sections.size(); g++) {
+            out.writeInt(groupRows.get(g));
+            for (long value : sections.get(g)) {
+                out.writeLong(value);
+            }
+        }
+        out.writeLong(footer);
+        out.writeInt(MAGIC);
+        out.close();
+    }
+
+    /** Growable byte buffer for one column of the current row group. */
+    private static class ByteSink {
+        private byte[] bytes = new byte[1024];
+        private int size;
+
+        void write(int b) {
+            if (size == bytes.length) {
+                byte[] grown = new byte[bytes.length * 2];
+                System.arraycopy(bytes, 0, grown, 0, size);
+                bytes = grown;
+            }
+            bytes[size++] = (byte) b;
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeSignedVarint(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void writeBits(int row, int value, int width) {
+            long bit = (long) row * width;
+            int needed = (int) ((bit + width + 7) >>> 3);
+            while (size < needed) {
+                write(0);
+            }
+            for (int i = 0; i < width; i++, bit++) {
+                if ((value & (1 << i)) != 0) {
+                    bytes[(int) (bit >>> 3)] |= (byte) (1 << (bit & 7));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.blackjack;
+
+/**
+ * Supplies the player's bets and decisions to a {@link Game} instead of
+ * prompting on the console. A game driven by a decision source runs quietly.
+ */
+public interface DecisionSource {
+
+    String playerName();
+
+    /**
+     * The main bet for the coming round, from {@code betMin} to
+     * {@code earnings}, which is the player's earnings capped by the table
+     * maximum.
+     */
+    int nextBet(int earnings, int betMin);
+
+    /**
+     * Chooses an action for {@code hand}. {@code allowedActions} is a mask of
+     * {@link Action#mask()} bits and the returned action must be one of them.
+     */
+    Action decide(Player player, Hand hand, Card houseUpcard, int allowedActions);
+
+    /** The Perfect Pairs stake for the coming round, at most {@code earnings}; 0 skips the bet. */
+    default int perfectPairsBet(int earnings) {
+        return 0;
+    }
+
+    /** The 21+3 stake for the coming round, at most {@code earnings}; 0 skips the bet. */
+    default int twentyOnePlusThreeBet(int earnings) {
+        return 0;
+    }
+
+    default boolean takeInsurance(Player player, Hand hand) {
+        return false;
+    }
+
+    boolean playAgain(int earnings);
+}
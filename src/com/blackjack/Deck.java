@@ -1,34 +1,106 @@
 package com.blackjack;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Random;
 
+/**
+ * A shoe of one or more decks. The cards still to be dealt are kept in
+ * {@code cards[0, remaining)} and are dealt from the end of that range.
+ * In lazy mode nothing is shuffled up front: each deal swaps a randomly
+ * chosen remaining card to the end, which is one Fisher-Yates step, so a
+ * round only pays for the cards it actually uses. In continuous mode the
+ * cards returned after a round are each swapped into a random position,
+ * which costs O(cards returned).
+ */
 public class Deck {
-	private List<Card> cards;
-    private Random random;
+	private Card[] cards;
+    private int remaining;
+    private RandomSource random;
+    private ShuffleMode mode;
 
     public Deck() {
-        this.cards = new ArrayList<>();
-        this.random = new Random();
+        this(1, RandomAlgorithm.XOSHIRO256PP.create(), ShuffleMode.LAZY);
+    }
+
+    public Deck(int decks, RandomSource random, ShuffleMode mode) {
+        if (decks < 1) {
+            throw new IllegalArgumentException("A shoe needs at least one deck");
+        }
+        this.cards = new Card[decks * Card.DECK_SIZE];
+        this.random = random;
+        this.mode = mode;
 
-        for (Card.Suit suit : Card.Suit.values()) {
-            for (Card.Value value : Card.Value.values()) {
-                cards.add(new Card(suit, value));
-            }
+        for (int i = 0; i < cards.length; i++) {
+            cards[i] = Card.of(i % Card.DECK_SIZE);
+        }
+        this.remaining = cards.length;
+        if (mode != ShuffleMode.LAZY) {
+            shuffle();
         }
     }
 
     public void shuffle() {
-        Collections.shuffle(cards, random);
+        for (int i = remaining - 1; i > 0; i--) {
+            swap(i, random.nextInt(i + 1));
+        }
+    }
+
+    public void reset() {
+        remaining = cards.length;
+        if (mode != ShuffleMode.LAZY) {
+            shuffle();
+        }
     }
 
     public Card dealCard() {
-        if (cards.isEmpty()) {
+        if (remaining == 0) {
             throw new IllegalStateException("Deck is empty. Cannot deal a card.");
         }
-        return cards.remove(0);
+        if (mode == ShuffleMode.LAZY) {
+            swap(remaining - 1, random.nextInt(remaining));
+        }
+        return cards[--remaining];
+    }
+
+    /**
+     * Puts a card that was dealt from this shoe back in. Outside lazy mode it
+     * lands in a uniformly random position among the undealt cards.
+     */
+    public void returnCard(Card card) {
+        if (remaining == cards.length) {
+            throw new IllegalStateException("Shoe is full. Cannot return a card.");
+        }
+        cards[remaining] = card;
+        if (mode != ShuffleMode.LAZY) {
+            swap(remaining, random.nextInt(remaining + 1));
+        }
+        remaining++;
     }
-}
 
+    public void returnCards(List<Card> returned) {
+        for (int i = 0; i < returned.size(); i++) {
+            returnCard(returned.get(i));
+        }
+    }
+
+    public int size() {
+        return remaining;
+    }
+
+    public int capacity() {
+        return cards.length;
+    }
+
+    public ShuffleMode getMode() {
+        return mode;
+    }
+
+    public boolean isContinuous() {
+        return mode == ShuffleMode.CONTINUOUS;
+    }
+
+    private void swap(int i, int j) {
+        Card card = cards[i];
+        cards[i] = cards[j];
+        cards[j] = card;
+    }
+}
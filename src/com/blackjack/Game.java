@@ -4,19 +4,16 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.Scanner;
 
 public class Game {
 
-	private static final int INITIAL_BALANCE = 100;
-
-	private static final int BET_MIN = 10;
-
 	private static final int BLACKJACK_VALUE = 21;
 
-	private static final int DEALER_MINIMUM = 17;
-
 	private static final String PLAY_AGAIN_PROMPT = "Do you want to play again? (y/n): ";
 
 	private static final String WIN_MESSAGE = "Congratulations! You won!";
@@ -25,77 +22,459 @@ public class Game {
 
 	private static final String PUSH_MESSAGE = "It's a push!";
 
+	private static final String SURRENDER_MESSAGE = "You surrendered half your bet.";
+
+	public static final int MAX_SEATS = 7;
+
 	private Scanner scanner;
-	private Player player;
+	private boolean verbose;
+	private Rules rules;
+	private List<Seat> seats;
 	private House house;
 	private Deck deck;
+	private String dataFile;
+	private RoundLog roundLog;
+	private int roundsPlayed;
+	private List<RoundListener> listeners;
+	private HintService hints;
+	private RoundJournal journal;
+	private long journalRound;
+	private AccountStore accounts;
+	private RulesConfig rulesConfig;
+
+	/** One player at the table and what they did in the current round. */
+	private static class Seat {
+		private int index;
+		private DecisionSource decisions;
+		private Player player;
+		private boolean active;
+		private List<Outcome> outcomes;
+		private byte[] actions;
+		private int actionCount;
+		private int earningsBeforeRound;
+		private int insurance;
+		private int pairsBet;
+		private int threeCardBet;
+		private int sideNet;
+
+		Seat(int index, DecisionSource decisions) {
+			this.index = index;
+			this.decisions = decisions;
+			this.outcomes = new ArrayList<>();
+			this.actions = new byte[16];
+		}
+	}
 
 	public Game() {
 		this.scanner = new Scanner(System.in);
-		this.player = null;
+		this.verbose = true;
+		this.rules = Rules.standard();
+		this.seats = new ArrayList<>();
+		this.seats.add(new Seat(0, null));
+		this.house = new House();
+		this.deck = new Deck();
+		this.dataFile = "game_data.txt";
+		this.listeners = new ArrayList<>();
+	}
+
+	public Game(DecisionSource decisions) {
+		this(decisions, Rules.standard());
+	}
+
+	public Game(DecisionSource decisions, Rules rules) {
+		this(Arrays.asList(decisions), rules);
+	}
+
+	/** A table of one to {@link #MAX_SEATS} players who share one shoe, in seat order. */
+	public Game(List<DecisionSource> seated, Rules rules) {
+		if (seated.isEmpty() || seated.size() > MAX_SEATS) {
+			throw new IllegalArgumentException("A table seats 1 to " + MAX_SEATS + " players");
+		}
+		this.scanner = null;
+		this.verbose = false;
+		this.rules = rules;
+		this.seats = new ArrayList<>();
+		for (DecisionSource decisions : seated) {
+			this.seats.add(new Seat(this.seats.size(), decisions));
+		}
 		this.house = new House();
 		this.deck = new Deck();
+		this.dataFile = "game_data.txt";
+		this.listeners = new ArrayList<>();
 	}
 
 	public void start() {
-		System.out.println("Welcome to the Blackjack game!");
+		if (verbose) {
+			System.out.println("Welcome to the Blackjack game!");
+			System.out.println("Table rules: " + rules);
+			System.out.println("Table limits: " + rules.describeLimits());
+		}
 
-		String playerName = getPlayerName();
-		player = new Player(playerName);
-		player.setEarnings(INITIAL_BALANCE);
+		seatPlayer();
 
 		boolean continuePlaying = true;
 		while (continuePlaying) {
-			playRound();
-			continuePlaying = askToPlayAgain();
-			deck.shuffle();
+			playNextRound();
+			continuePlaying = false;
+			for (Seat seat : seats) {
+				seat.active = seat.active && askToPlayAgain(seat);
+				continuePlaying |= seat.active;
+			}
 		}
 
-		System.out.println("Thank you for playing!");
+		if (verbose) {
+			System.out.println("Thank you for playing!");
+		} else {
+			for (Seat seat : seats) {
+				System.out.println(seat.player.getName() + ": " + roundsPlayed + " rounds, earnings $"
+						+ seat.player.getEarnings());
+			}
+		}
 	}
 
-	private String getPlayerName() {
+	/**
+	 * Seats every player with their stored balance, or the starting balance
+	 * for new players and players who had too little left to bet. A seat
+	 * that still cannot cover the minimum bet stays empty.
+	 */
+	public void seatPlayer() {
+		for (Seat seat : seats) {
+			String playerName = getPlayerName(seat);
+			seat.player = new Player(playerName);
+			seat.player.setEarnings(openingBalance(playerName));
+			seat.active = canBet(seat);
+		}
+	}
+
+	/**
+	 * The balance a player sits down with. The account store holds it, after
+	 * any settlements the journal has that never reached the store are
+	 * replayed into it. Without a store every session starts afresh.
+	 */
+	private int openingBalance(String playerName) {
+		if (accounts == null) {
+			return rules.getInitialBalance();
+		}
+		try {
+			boolean created = accounts.create(playerName, "", rules.getInitialBalance());
+			if (journal != null) {
+				int unapplied = journal.unappliedDelta(playerName);
+				if (unapplied != 0) {
+					accounts.adjustBalance(playerName, unapplied);
+				}
+				journal.markApplied(playerName);
+			}
+			int balance = accounts.load(playerName).getBalance();
+			if (balance < rules.getMinBet()) {
+				announce("Welcome back, " + playerName + ". You had $" + balance + " left, so you start again with $"
+						+ rules.getInitialBalance() + ".");
+				accounts.adjustBalance(playerName, rules.getInitialBalance() - balance);
+				return rules.getInitialBalance();
+			}
+			if (!created) {
+				announce("Welcome back, " + playerName + ". Your balance is $" + balance + ".");
+			}
+			return balance;
+		} catch (IOException e) {
+			System.out.println("Failed to load the balance of " + playerName + ".");
+			return rules.getInitialBalance();
+		}
+	}
+
+	public void playNextRound() {
+		if (!deck.isContinuous()) {
+			deck.reset();
+		}
+		if (hints != null) {
+			hints.reset();
+		}
+		playRound();
+		if (deck.isContinuous()) {
+			returnCardsToShoe();
+		}
+	}
+
+	private void returnCardsToShoe() {
+		for (Seat seat : seats) {
+			for (Hand hand : seat.player.getHands()) {
+				deck.returnCards(hand.getCards());
+			}
+		}
+		deck.returnCards(house.getHand());
+	}
+
+	/**
+	 * Takes the rules from {@code rulesConfig} from the next round on. The
+	 * current snapshot is read once at the start of each round, so a reload
+	 * never changes the rules part way through a round.
+	 */
+	public void setRulesConfig(RulesConfig rulesConfig) {
+		this.rulesConfig = rulesConfig;
+		this.rules = rulesConfig.current();
+	}
+
+	public void setHintService(HintService hints) {
+		this.hints = hints;
+	}
+
+	/** Journals every round transition so a crash mid-round can be recovered. */
+	public void setJournal(RoundJournal journal) {
+		this.journal = journal;
+	}
+
+	/** Keeps each player's balance in {@code accounts}, updated as every round settles. */
+	public void setAccountStore(AccountStore accounts) {
+		this.accounts = accounts;
+	}
+
+	public void setDeck(Deck deck) {
+		this.deck = deck;
+	}
+
+	public Deck getDeck() {
+		return deck;
+	}
+
+	public void addRoundListener(RoundListener listener) {
+		listeners.add(listener);
+	}
+
+	/** Sets the round log file; null turns off round logging for headless runs. */
+	public void setDataFile(String dataFile) {
+		this.dataFile = dataFile;
+	}
+
+	public void setRoundLog(RoundLog roundLog) {
+		this.roundLog = roundLog;
+	}
+
+	public Rules getRules() {
+		return rules;
+	}
+
+	/** The player in the first seat. */
+	public Player getPlayer() {
+		return seats.get(0).player;
+	}
+
+	public List<Player> getPlayers() {
+		List<Player> players = new ArrayList<>();
+		for (Seat seat : seats) {
+			players.add(seat.player);
+		}
+		return players;
+	}
+
+	public int getSeatCount() {
+		return seats.size();
+	}
+
+	public House getHouse() {
+		return house;
+	}
+
+	public int getRoundsPlayed() {
+		return roundsPlayed;
+	}
+
+	private String getPlayerName(Seat seat) {
+		if (seat.decisions != null) {
+			return seat.decisions.playerName();
+		}
 		System.out.print("Please enter your name: ");
 		return scanner.nextLine();
 	}
 
+	/**
+	 * Plays one round for every seated player: bets in seat order, two
+	 * round-robin passes of the deal, each seat's turn in order, one dealer
+	 * turn if any hand is still live and then settlement of all seats.
+	 */
 	private void playRound() {
-		System.out.println("\n--- Round Start ---");
-		player.clearHand();
+		if (verbose) {
+			System.out.println("\n--- Round Start ---");
+		}
 		house.clearHand();
+		if (rulesConfig != null) {
+			Rules current = rulesConfig.current();
+			if (current != rules) {
+				rules = current;
+				if (verbose) {
+					System.out.println("Table rules changed: " + rules + ", " + rules.describeLimits());
+				}
+				if (hints != null && !hints.getTables().getRules().toString().equals(rules.toString())) {
+					hints = null;
+					announce("Hints are off: they were computed for the previous rules.");
+				}
+			}
+		}
 
-		if (player.getEarnings() <= 0) {
-			System.out.println("Insufficient earnings to place a bet. Game over!");
+		boolean anySeat = false;
+		if (journal != null) {
+			journalRound = journal.beginRound();
+		}
+		for (Seat seat : seats) {
+			seat.player.clearHand();
+			seat.outcomes.clear();
+			seat.actionCount = 0;
+			seat.insurance = 0;
+			seat.pairsBet = 0;
+			seat.threeCardBet = 0;
+			seat.sideNet = 0;
+			if (seat.active) {
+				seat.active = canBet(seat);
+			}
+			if (seat.active) {
+				seat.earningsBeforeRound = seat.player.getEarnings();
+				int bet = placeBet(seat);
+				seat.player.getHands().get(0).setBet(bet);
+				if (rules.offersSideBets()) {
+					placeSideBets(seat);
+				}
+				if (journal != null) {
+					journal.betReserved(journalRound, seat.index, seat.player.getName(), seat.earningsBeforeRound, bet);
+				}
+				anySeat = true;
+			}
+		}
+		if (!anySeat) {
 			return;
 		}
-
-		int bet = placeBet();
 		dealFirstCards();
+		roundsPlayed++;
 
-		if (player.calculateHandValue() == BLACKJACK_VALUE) {
-			System.out.println("Blackjack! You win!");
-			player.setEarnings(player.getEarnings() + (int) (bet * 1.5));
+		for (Seat seat : seats) {
+			if (seat.active && (seat.pairsBet | seat.threeCardBet) != 0) {
+				settleSideBets(seat);
+			}
+		}
+		for (Seat seat : seats) {
+			if (seat.active) {
+				seat.insurance = offerInsurance(seat);
+			}
+		}
+		if (dealerHasBlackjack()) {
+			if (verbose) {
+				System.out.println("House cards: " + house.getHand());
+				System.out.println("The house has blackjack.");
+			}
+			for (Seat seat : seats) {
+				if (seat.active) {
+					settleDealerBlackjack(seat);
+				}
+			}
 		} else {
-			playerTurn();
-			houseTurn();
+			boolean anyHandLive = false;
+			for (Seat seat : seats) {
+				if (!seat.active) {
+					continue;
+				}
+				Hand hand = seat.player.getHands().get(0);
+				if (hand.isBlackjack()) {
+					if (verbose) {
+						System.out.println("Blackjack! You win!");
+					}
+					seat.player.setEarnings(seat.player.getEarnings() + hand.getBet()
+							+ rules.blackjackWinnings(hand.getBet()));
+		            writeGameData(seat, Outcome.BLACKJACK);
+				} else {
+					playerTurn(seat);
+					anyHandLive |= anyHandLive(seat);
+				}
+			}
+			if (anyHandLive) {
+				houseTurn();
+			}
 			determineWinner();
 		}
 
-		System.out.println("Your earnings: $" + player.getEarnings());
+		for (Seat seat : seats) {
+			if (!seat.active) {
+				continue;
+			}
+			int net = seat.player.getEarnings() - seat.earningsBeforeRound;
+			if (journal != null) {
+				journal.settled(journalRound, seat.index, seat.player.getName(), seat.player.getEarnings(), net);
+			}
+			// The journal holds the delta until the store has it, so a crash in between replays it
+			if (accounts != null) {
+				try {
+					accounts.adjustBalance(seat.player.getName(), net);
+					if (journal != null) {
+						journal.applied(journalRound, seat.index, seat.player.getEarnings());
+					}
+				} catch (IOException e) {
+					System.out.println("Failed to save the balance of " + seat.player.getName() + ".");
+				}
+			}
+			if (verbose) {
+				System.out.println("Your earnings: $" + seat.player.getEarnings());
+			}
+			if (!listeners.isEmpty()) {
+				fireRoundSettled(seat);
+			}
+		}
+		if (journal != null) {
+			journal.roundComplete();
+		}
+	}
+
+	private void fireRoundSettled(Seat seat) {
+		List<Hand> hands = seat.player.getHands();
+		int count = seat.outcomes.size();
+		int[] bets = new int[count];
+		int[] nets = new int[count];
+		int[] totals = new int[count];
+		byte[][] cards = new byte[count][];
+		int wagered = seat.insurance + seat.pairsBet + seat.threeCardBet;
+		for (int i = 0; i < hands.size(); i++) {
+			wagered += hands.get(i).getBet();
+		}
+		for (int i = 0; i < count; i++) {
+			Hand hand = hands.get(i);
+			bets[i] = hand.getBet();
+			nets[i] = handNet(seat.outcomes.get(i), hand.getBet());
+			totals[i] = hand.getValue();
+			cards[i] = RoundResult.codes(hand.getCards());
+		}
+
+		Player player = seat.player;
+		RoundResult result = new RoundResult(player.getName(), System.currentTimeMillis(), wagered,
+				player.getEarnings() - seat.earningsBeforeRound, player.getEarnings(),
+				seat.outcomes.toArray(new Outcome[count]));
+		result.setHandDetail(bets, nets, totals, cards, RoundResult.codes(house.getHand()),
+				house.calculateHandValue());
+		result.setActions(Arrays.copyOf(seat.actions, seat.actionCount), seat.insurance > 0);
+		result.setSideBets(seat.pairsBet + seat.threeCardBet, seat.sideNet);
+		for (RoundListener listener : listeners) {
+			listener.roundSettled(result);
+		}
 	}
 
-	private int placeBet() {
+	private int placeBet(Seat seat) {
+		Player player = seat.player;
+		if (seat.decisions != null) {
+			int limit = Math.min(player.getEarnings(), rules.getMaxBet());
+			int bet = seat.decisions.nextBet(limit, rules.getMinBet());
+			if (bet < rules.getMinBet() || bet > limit) {
+				throw new IllegalStateException("Invalid bet of $" + bet + " with earnings of $" + player.getEarnings());
+			}
+			player.setEarnings(player.getEarnings() - bet);
+			return bet;
+		}
+
 		int bet = 0;
 		boolean validBet = false;
 
 		while (!validBet) {
 			System.out.println("Your earnings: $" + player.getEarnings());
-			System.out.print("Place your bet ($" + BET_MIN + " minimum): ");
+			System.out.print("Place your bet ($" + rules.getMinBet() + " minimum, $" + rules.getMaxBet()
+					+ " maximum): ");
 			String input = scanner.nextLine();
 
 			try {
 				bet = Integer.parseInt(input);
-				if (bet >= BET_MIN && bet <= player.getEarnings()) {
+				if (bet >= rules.getMinBet() && bet <= Math.min(player.getEarnings(), rules.getMaxBet())) {
 					validBet = true;
 				} else {
 					System.out.println("Invalid bet amount. Please try again.");
@@ -109,101 +488,408 @@ public class Game {
 		return bet;
 	}
 
+	private void placeSideBets(Seat seat) {
+		Player player = seat.player;
+		if (seat.decisions != null) {
+			seat.pairsBet = seat.decisions.perfectPairsBet(player.getEarnings());
+			checkSideBet(seat.pairsBet, player);
+			player.setEarnings(player.getEarnings() - seat.pairsBet);
+			seat.threeCardBet = seat.decisions.twentyOnePlusThreeBet(player.getEarnings());
+			checkSideBet(seat.threeCardBet, player);
+			player.setEarnings(player.getEarnings() - seat.threeCardBet);
+			return;
+		}
+		if (player.getEarnings() > 0) {
+			seat.pairsBet = readSideBet("Perfect Pairs", player.getEarnings());
+			player.setEarnings(player.getEarnings() - seat.pairsBet);
+		}
+		if (player.getEarnings() > 0) {
+			seat.threeCardBet = readSideBet("21+3", player.getEarnings());
+			player.setEarnings(player.getEarnings() - seat.threeCardBet);
+		}
+	}
+
+	private static void checkSideBet(int bet, Player player) {
+		if (bet < 0 || bet > player.getEarnings()) {
+			throw new IllegalStateException("Invalid side bet of $" + bet + " with earnings of $" + player.getEarnings());
+		}
+	}
+
+	private int readSideBet(String name, int earnings) {
+		while (true) {
+			System.out.print(name + " side bet (0 to skip, up to $" + earnings + "): ");
+			String input = scanner.nextLine().trim();
+			try {
+				int bet = input.isEmpty() ? 0 : Integer.parseInt(input);
+				if (bet >= 0 && bet <= earnings) {
+					return bet;
+				}
+				System.out.println("Invalid side bet. Please try again.");
+			} catch (NumberFormatException e) {
+				System.out.println("Invalid side bet. Please try again.");
+			}
+		}
+	}
+
+	/** Pays the side bets from the table lookups on the first two cards and the upcard. */
+	private void settleSideBets(Seat seat) {
+		Player player = seat.player;
+		List<Card> cards = player.getHands().get(0).getCards();
+		int first = cards.get(0).getCode();
+		int second = cards.get(1).getCode();
+		int pairs = rules.perfectPairsPays(SideBets.perfectPairs(first, second));
+		int threeCard = rules.twentyOnePlusThreePays(
+				SideBets.twentyOnePlusThree(first, second, house.getUpcard().getCode()));
+		int returned = SideBets.returned(seat.pairsBet, pairs) + SideBets.returned(seat.threeCardBet, threeCard);
+		seat.sideNet = returned - seat.pairsBet - seat.threeCardBet;
+		player.setEarnings(player.getEarnings() + returned);
+		if (verbose) {
+			if (seat.pairsBet > 0) {
+				System.out.println(pairs > 0 ? "Perfect Pairs pays " + pairs + " to 1: $" + pairs * seat.pairsBet + "."
+						: "Perfect Pairs loses.");
+			}
+			if (seat.threeCardBet > 0) {
+				System.out.println(threeCard > 0 ? "21+3 pays " + threeCard + " to 1: $" + threeCard * seat.threeCardBet
+						+ "." : "21+3 loses.");
+			}
+		}
+	}
+
 	private void dealFirstCards() {
 		for (int i = 0; i < 2; i++) {
-			player.addCardToHand(deck.dealCard());
-			house.addCardToHand(deck.dealCard());
+			for (Seat seat : seats) {
+				if (seat.active) {
+					seat.player.addCardToHand(dealSeenCard());
+				}
+			}
+			house.addCardToHand(i == 0 ? dealSeenCard() : deck.dealCard());
+		}
+		if (journal != null) {
+			for (Seat seat : seats) {
+				if (seat.active) {
+					List<Card> cards = new ArrayList<>(seat.player.getHand());
+					cards.add(house.getUpcard());
+					journal.cardsDealt(journalRound, seat.index, seat.player.getEarnings(), RoundResult.codes(cards));
+				}
+			}
+		}
+
+		if (verbose) {
+			System.out.println("Your cards: " + getPlayer().getHand());
+			System.out.println("House cards: " + house.getUpcard() + " and [Hidden]");
+		}
+	}
+
+	private int offerInsurance(Seat seat) {
+		if (!rules.offersInsurance() || house.getUpcard().getValue() != Card.Value.ACE) {
+			return 0;
+		}
+		Player player = seat.player;
+		Hand hand = player.getHands().get(0);
+		int insurance = hand.getBet() / 2;
+		if (insurance == 0 || insurance > player.getEarnings()) {
+			return 0;
+		}
+
+		boolean take;
+		if (seat.decisions != null) {
+			take = seat.decisions.takeInsurance(player, hand);
+		} else {
+			take = askYesNo("The house shows an ace. Take insurance for $" + insurance + "? (y/n): ");
+		}
+		if (!take) {
+			return 0;
 		}
-	    deck.shuffle(); 
+		player.setEarnings(player.getEarnings() - insurance);
+		return insurance;
+	}
 
-		System.out.println("Your cards: " + player.getHand());
-		System.out.println("House cards: " + house.getHand().get(0) + " and [Hidden]");
+	private boolean dealerHasBlackjack() {
+		int upcard = house.getUpcard().getValue().getNumericValue();
+		return (upcard == 10 || upcard == 11) && house.getPlayingHand().isBlackjack();
+	}
+
+	private void settleDealerBlackjack(Seat seat) {
+		Player player = seat.player;
+		Hand hand = player.getHands().get(0);
+		if (seat.insurance > 0) {
+			player.setEarnings(player.getEarnings() + (rules.getInsurancePays() + 1) * seat.insurance);
+			announce("Insurance pays $" + rules.getInsurancePays() * seat.insurance + ".");
+		}
+		if (hand.isBlackjack()) {
+			announce(PUSH_MESSAGE);
+			player.setEarnings(player.getEarnings() + hand.getBet());
+            writeGameData(seat, Outcome.PUSH);
+		} else {
+			announce(LOSE_MESSAGE);
+            writeGameData(seat, Outcome.LOSS);
+		}
+	}
+
+	private int handNet(Outcome outcome, int bet) {
+		switch (outcome) {
+			case WIN:
+				return bet;
+			case BLACKJACK:
+				return rules.blackjackWinnings(bet);
+			case LOSS:
+				return -bet;
+			case SURRENDER:
+				return bet / 2 - bet;
+			default:
+				return 0;
+		}
 	}
-	
-	private void playerTurn() {
+
+	private void recordAction(Seat seat, Action action) {
+		if (seat.actionCount == seat.actions.length) {
+			seat.actions = Arrays.copyOf(seat.actions, 2 * seat.actions.length);
+		}
+		seat.actions[seat.actionCount++] = (byte) action.ordinal();
+		if (journal != null) {
+			journal.action(journalRound, seat.index, seat.player.getEarnings(), action);
+		}
+	}
+
+	private Action readAction(Seat seat, Hand hand, int allowedActions) {
+		if (seat.decisions != null) {
+			Action action = seat.decisions.decide(seat.player, hand, house.getUpcard(), allowedActions);
+			if (!action.isAllowed(allowedActions)) {
+				throw new IllegalStateException("Action " + action + " is not allowed on " + hand);
+			}
+			return action;
+		}
+
+		if (hints != null) {
+			Action hint = hints.bestAction(hand, house.getUpcard(), allowedActions);
+			System.out.printf("Hint: %s (hit %+.3f, stay %+.3f)%n", hint.getLabel(), hints.getHitValue(),
+					hints.getStayValue());
+		}
+		String prompt = actionPrompt(allowedActions);
 		while (true) {
-			System.out.print("Do you want to hit or stay? (h/s): ");
+			System.out.print(prompt);
 			String choice = scanner.nextLine();
+			Action action = choice.length() == 1 ? Action.fromCode(choice.charAt(0)) : null;
+			if (action != null && action.isAllowed(allowedActions)) {
+				return action;
+			}
+			System.out.println("Invalid choice. Please try again.");
+		}
+	}
+
+	/** Deals a card the player can see, so hints account for it. */
+	private Card dealSeenCard() {
+		Card card = deck.dealCard();
+		if (hints != null) {
+			hints.cardSeen(card);
+		}
+		return card;
+	}
 
-			if (choice.equalsIgnoreCase("h")) {
-				Card card = deck.dealCard();
-				player.addCardToHand(card);
-				System.out.println("You drew a " + card);
-				System.out.println("Your cards: " + player.getHand());
+	private static String actionPrompt(int allowedActions) {
+		StringBuilder labels = new StringBuilder();
+		StringBuilder codes = new StringBuilder();
+		for (Action action : Action.values()) {
+			if (action.isAllowed(allowedActions)) {
+				if (labels.length() > 0) {
+					labels.append(", ");
+					codes.append('/');
+				}
+				labels.append(action.getLabel());
+				codes.append(action.getCode());
+			}
+		}
+		return "Do you want to " + labels + "? (" + codes + "): ";
+	}
 
-				int handValue = player.calculateHandValue();
-				if (handValue > BLACKJACK_VALUE) {
-					System.out.println("Busted! You lose.");
-					break;
-				} else if (handValue == BLACKJACK_VALUE) {
+	private void playerTurn(Seat seat) {
+		List<Hand> hands = seat.player.getHands();
+		for (int i = 0; i < hands.size(); i++) {
+			Hand hand = hands.get(i);
+			if (hand.size() == 1) {
+				hand.addCard(dealSeenCard());
+				if (verbose) {
+					System.out.println("Playing split hand " + (i + 1) + ": " + hand);
+				}
+			}
+			playHand(seat, hand, i);
+		}
+	}
+
+	private void playHand(Seat seat, Hand hand, int index) {
+		Player player = seat.player;
+		while (true) {
+			int allowedActions = rules.allowedActions(hand, player.getHands().size());
+			if (hand.getBet() > player.getEarnings()) {
+				allowedActions &= ~(Action.DOUBLE.mask() | Action.SPLIT.mask());
+			}
+			if (allowedActions == Action.STAY.mask()) {
+				if (verbose && hand.getValue() == BLACKJACK_VALUE) {
 					System.out.println("You have 21!");
-					break;
 				}
-			} else if (choice.equalsIgnoreCase("s")) {
-				System.out.println("You chose to stay.");
-				break;
-			} else {
-				System.out.println("Invalid choice. Please try again.");
+				return;
+			}
+
+			Action action = readAction(seat, hand, allowedActions);
+			recordAction(seat, action);
+			switch (action) {
+				case HIT:
+					if (hitHand(hand)) {
+						return;
+					}
+					break;
+				case DOUBLE:
+					player.setEarnings(player.getEarnings() - hand.getBet());
+					hand.setBet(2 * hand.getBet());
+					hand.setDoubled(true);
+					hitHand(hand);
+					return;
+				case SPLIT:
+					player.setEarnings(player.getEarnings() - hand.getBet());
+					player.splitHand(index);
+					hand.addCard(dealSeenCard());
+					if (verbose) {
+						System.out.println("Your split hand: " + hand);
+					}
+					break;
+				case SURRENDER:
+					hand.setSurrendered(true);
+					if (verbose) {
+						System.out.println(SURRENDER_MESSAGE);
+					}
+					return;
+				default:
+					if (verbose) {
+						System.out.println("You chose to stay.");
+					}
+					return;
+			}
+		}
+	}
+
+	private boolean hitHand(Hand hand) {
+		Card card = dealSeenCard();
+		hand.addCard(card);
+		if (verbose) {
+			System.out.println("You drew a " + card);
+			System.out.println("Your cards: " + hand);
+		}
+
+		if (hand.isBusted()) {
+			if (verbose) {
+				System.out.println("Busted! You lose.");
+			}
+			return true;
+		}
+		return false;
+	}
+
+	private boolean anyHandLive(Seat seat) {
+		for (Hand hand : seat.player.getHands()) {
+			if (!hand.isBusted() && !hand.isSurrendered()) {
+				return true;
 			}
 		}
+		return false;
 	}
 
 	private void houseTurn() {
-		System.out.println("House cards: " + house.getHand());
+		if (verbose) {
+			System.out.println("House cards: " + house.getHand());
+		}
 
-		while (house.calculateHandValue() < DEALER_MINIMUM) {
+		while (rules.dealerHits(house.getPlayingHand())) {
 			Card card = deck.dealCard();
 			house.addCardToHand(card);
-			System.out.println("House drew a " + card);
-			System.out.println("House cards: " + house.getHand());
+			if (verbose) {
+				System.out.println("House drew a " + card);
+				System.out.println("House cards: " + house.getHand());
+			}
 		}
 	}
 
+	/** Settles every seat that is still in the round against the dealer's final hand. */
 	private void determineWinner() {
-		int playerHandValue = player.calculateHandValue();
 		int houseHandValue = house.calculateHandValue();
+		if (verbose) {
+			System.out.println("House hand value: " + houseHandValue);
+		}
 
-		System.out.println("Your hand value: " + playerHandValue);
-		System.out.println("House hand value: " + houseHandValue);
-
-		if (playerHandValue > BLACKJACK_VALUE) {
-			System.out.println(LOSE_MESSAGE);
-            writeGameData(player.getName(), "Loss");
-		} else if (houseHandValue > BLACKJACK_VALUE) {
-			System.out.println(WIN_MESSAGE);
-			player.setEarnings(player.getEarnings() + 2 * BET_MIN);
-            writeGameData(player.getName(), "Win");
-		} else if (playerHandValue > houseHandValue) {
-			System.out.println(WIN_MESSAGE);
-			player.setEarnings(player.getEarnings() + 2 * BET_MIN);
-            writeGameData(player.getName(), "Win");
-		} else if (playerHandValue < houseHandValue) {
-			System.out.println(LOSE_MESSAGE);
-            writeGameData(player.getName(), "Loss");
-		} else {
-			System.out.println(PUSH_MESSAGE);
-			player.setEarnings(player.getEarnings() + BET_MIN);
-            writeGameData(player.getName(), "Push");
+		for (Seat seat : seats) {
+			if (!seat.active || !seat.outcomes.isEmpty()) {
+				continue;
+			}
+			Player player = seat.player;
+			for (Hand hand : player.getHands()) {
+				int playerHandValue = hand.getValue();
+				int bet = hand.getBet();
+
+				if (verbose) {
+					System.out.println("Your hand value: " + playerHandValue);
+				}
+
+				if (hand.isSurrendered()) {
+					announce(SURRENDER_MESSAGE);
+					player.setEarnings(player.getEarnings() + bet / 2);
+		            writeGameData(seat, Outcome.SURRENDER);
+				} else if (playerHandValue > BLACKJACK_VALUE) {
+					announce(LOSE_MESSAGE);
+		            writeGameData(seat, Outcome.LOSS);
+				} else if (houseHandValue > BLACKJACK_VALUE) {
+					announce(WIN_MESSAGE);
+					player.setEarnings(player.getEarnings() + 2 * bet);
+		            writeGameData(seat, Outcome.WIN);
+				} else if (playerHandValue > houseHandValue) {
+					announce(WIN_MESSAGE);
+					player.setEarnings(player.getEarnings() + 2 * bet);
+		            writeGameData(seat, Outcome.WIN);
+				} else if (playerHandValue < houseHandValue) {
+					announce(LOSE_MESSAGE);
+		            writeGameData(seat, Outcome.LOSS);
+				} else {
+					announce(PUSH_MESSAGE);
+					player.setEarnings(player.getEarnings() + bet);
+		            writeGameData(seat, Outcome.PUSH);
+				}
+			}
 		}
 	}
-	 private void writeGameData(String playerName, String result) {
+	 private void writeGameData(Seat seat, Outcome outcome) {
+	        String playerName = seat.player.getName();
+	        seat.outcomes.add(outcome);
+	        if (roundLog != null) {
+	            try {
+	                roundLog.append(System.currentTimeMillis(), playerName, outcome.getLabel());
+	            } catch (IOException e) {
+	                System.out.println("Failed to write game data.");
+	            }
+	            return;
+	        }
+	        if (dataFile == null) {
+	            return;
+	        }
 	        try {
-	            String fileName = "game_data.txt";
-	            File file = new File(fileName);
+	            File file = new File(dataFile);
 	            FileWriter writer = new FileWriter(file, true);
 	            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 	            String timestamp = dateFormat.format(new Date());
 
-	            writer.write(timestamp + " - Player: " + playerName + ", Result: " + result + "\n");
+	            writer.write(timestamp + " - Player: " + playerName + ", Result: " + outcome.getLabel() + "\n");
 	            writer.close();
 	        } catch (IOException e) {
 	            System.out.println("Failed to write game data.");
 	        }
 	    }
 
-	private boolean askToPlayAgain() {
+	private void announce(String message) {
+		if (verbose) {
+			System.out.println(message);
+		}
+	}
+
+	private boolean askYesNo(String prompt) {
 		while (true) {
-			System.out.print(PLAY_AGAIN_PROMPT);
+			System.out.print(prompt);
 			String choice = scanner.nextLine();
 
 			if (choice.equalsIgnoreCase("y")) {
@@ -216,4 +902,30 @@ public class Game {
 		}
 	}
 
+	/** Checks against the current rules, which a reload may have changed since the round began. */
+	private boolean askToPlayAgain(Seat seat) {
+		Rules current = rulesConfig != null ? rulesConfig.current() : rules;
+		if (seat.player.getEarnings() < current.getMinBet()) {
+			if (verbose) {
+				System.out.println("Insufficient earnings to place the $" + current.getMinBet() + " minimum bet. Game over!");
+			}
+			return false;
+		}
+		if (seat.decisions != null) {
+			return seat.decisions.playAgain(seat.player.getEarnings());
+		}
+		return askYesNo(PLAY_AGAIN_PROMPT);
+	}
+
+	/** Whether the seat can cover the minimum bet; a seat that cannot leaves the table. */
+	private boolean canBet(Seat seat) {
+		if (seat.player.getEarnings() >= rules.getMinBet()) {
+			return true;
+		}
+		if (verbose) {
+			System.out.println("Insufficient earnings to place the $" + rules.getMinBet() + " minimum bet. Game over!");
+		}
+		return false;
+	}
+
 }
@@ -0,0 +1,125 @@
+package com.blackjack;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One playing hand. Totals are kept incrementally with aces counted as one,
+ * so the value is a single comparison rather than a rescan of the cards.
+ */
+public class Hand {
+    private List<Card> cards;
+    private int hardTotal;
+    private int aces;
+    private int bet;
+    private boolean split;
+    private boolean splitAces;
+    private boolean doubled;
+    private boolean surrendered;
+
+    public Hand() {
+        this.cards = new ArrayList<>();
+    }
+
+    public List<Card> getCards() {
+        return cards;
+    }
+
+    public void clear() {
+        cards.clear();
+        hardTotal = 0;
+        aces = 0;
+        bet = 0;
+        split = false;
+        splitAces = false;
+        doubled = false;
+        surrendered = false;
+    }
+
+    public void addCard(Card card) {
+        cards.add(card);
+        hardTotal += card.getHardPoints();
+        if (card.isAce()) {
+            aces++;
+        }
+    }
+
+    public Card removeSecondCard() {
+        Card card = cards.remove(1);
+        hardTotal -= card.getHardPoints();
+        if (card.isAce()) {
+            aces--;
+        }
+        return card;
+    }
+
+    public int size() {
+        return cards.size();
+    }
+
+    public int getValue() {
+        return isSoft() ? hardTotal + 10 : hardTotal;
+    }
+
+    public boolean isSoft() {
+        return aces > 0 && hardTotal + 10 <= 21;
+    }
+
+    public boolean isBusted() {
+        return hardTotal > 21;
+    }
+
+    public boolean isPair() {
+        return cards.size() == 2
+                && cards.get(0).getHardPoints() == cards.get(1).getHardPoints();
+    }
+
+    public boolean isBlackjack() {
+        return cards.size() == 2 && !split && getValue() == 21;
+    }
+
+    public int getBet() {
+        return bet;
+    }
+
+    public void setBet(int bet) {
+        this.bet = bet;
+    }
+
+    public boolean isSplit() {
+        return split;
+    }
+
+    public void setSplit(boolean split) {
+        this.split = split;
+    }
+
+    public boolean isSplitAces() {
+        return splitAces;
+    }
+
+    public void setSplitAces(boolean splitAces) {
+        this.splitAces = splitAces;
+    }
+
+    public boolean isDoubled() {
+        return doubled;
+    }
+
+    public void setDoubled(boolean doubled) {
+        this.doubled = doubled;
+    }
+
+    public boolean isSurrendered() {
+        return surrendered;
+    }
+
+    public void setSurrendered(boolean surrendered) {
+        this.surrendered = surrendered;
+    }
+
+    @Override
+    public String toString() {
+        return cards.toString();
+    }
+}
@@ -0,0 +1,426 @@
+package com.blackjack;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bit-packed audit trail of every card and decision. A stream starts with
+ * {@code "BJH2"} and holds one record per round:
+ *
+ * <pre>
+ * timestamp delta    zigzag varint (ms)
+ * player id          varint; an unseen id is followed by the name (varint length + UTF-8)
+ * bet delta          zigzag varint, base bet against the previous round
+ * earnings delta     zigzag varint
+ * round net          zigzag varint, side bets included
+ * insured            1 bit
+ * side bets          1 bit; if set, side stake varint and side net zigzag varint
+ * hand count - 1     3 bits, at most {@link Rules#MAX_HANDS} hands
+ * per hand           doubled 1 bit, outcome 3 bits, card count 5 bits, cards 6 bits each
+ * dealer cards       card count 5 bits, cards 6 bits each
+ * action count       varint, then 2-bit opcodes (hit, stay, double, split)
+ * </pre>
+ *
+ * Varints are written as 8-bit groups inside the bit stream. Surrender is
+ * not an opcode: it is the only decision of a hand whose outcome is
+ * surrender. A typical round packs into about a dozen bytes. The decoder
+ * also reads {@code "BJH1"} streams, which predate side bets and have no
+ * side-bet bit.
+ */
+public class HandHistoryCodec {
+
+    static final int MAGIC = 0x424a4832;
+
+    static final int MAGIC_V1 = 0x424a4831;
+
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    /** Streaming encoder; register it with {@link Game#addRoundListener} to record every round. */
+    public static class Encoder implements RoundListener, AutoCloseable {
+        private BitOutput out;
+        private Map<String, Integer> players;
+        private long lastTimestamp;
+        private int lastBet;
+        private int lastEarnings;
+
+        public Encoder(OutputStream stream) throws IOException {
+            this.out = new BitOutput(stream);
+            this.players = new HashMap<>();
+            out.writeBits(MAGIC, 32);
+        }
+
+        public Encoder(File file) throws IOException {
+            this(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        }
+
+        @Override
+        public synchronized void roundSettled(RoundResult result) {
+            try {
+                encode(result);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write hand history", e);
+            }
+        }
+
+        public synchronized void encode(RoundResult result) throws IOException {
+            // Checked before anything is written, so a rejected round leaves the stream intact
+            if (result.getOutcomes().length > Rules.MAX_HANDS) {
+                throw new IllegalArgumentException(
+                        "Cannot record " + result.getOutcomes().length + " hands in one round");
+            }
+            out.writeSignedVarint(result.getTimestamp() - lastTimestamp);
+            lastTimestamp = result.getTimestamp();
+
+            Integer id = players.get(result.getPlayerName());
+            if (id == null) {
+                id = players.size();
+                players.put(result.getPlayerName(), id);
+                out.writeVarint(id);
+                byte[] name = result.getPlayerName().getBytes(StandardCharsets.UTF_8);
+                out.writeVarint(name.length);
+                for (byte b : name) {
+                    out.writeBits(b & 0xFF, 8);
+                }
+            } else {
+                out.writeVarint(id);
+            }
+
+            int[] bets = result.getHandBets();
+            int base = Integer.MAX_VALUE;
+            for (int bet : bets) {
+                base = Math.min(base, bet);
+            }
+            out.writeSignedVarint(base - lastBet);
+            lastBet = base;
+            out.writeSignedVarint(result.getEarnings() - lastEarnings);
+            lastEarnings = result.getEarnings();
+            out.writeSignedVarint(result.getNet());
+            out.writeBits(result.isInsured() ? 1 : 0, 1);
+            if (result.getSideWagered() == 0) {
+                out.writeBits(0, 1);
+            } else {
+                out.writeBits(1, 1);
+                out.writeVarint(result.getSideWagered());
+                out.writeSignedVarint(result.getSideNet());
+            }
+
+            Outcome[] outcomes = result.getOutcomes();
+            byte[][] cards = result.getHandCards();
+            out.writeBits(outcomes.length - 1, 3);
+            for (int h = 0; h < outcomes.length; h++) {
+                out.writeBits(bets[h] != base ? 1 : 0, 1);
+                out.writeBits(outcomes[h].ordinal(), 3);
+                writeCards(cards[h]);
+            }
+            writeCards(result.getDealerCards());
+
+            byte[] actions = result.getActions();
+            int count = 0;
+            for (byte action : actions) {
+                if (action != Action.SURRENDER.ordinal()) {
+                    count++;
+                }
+            }
+            out.writeVarint(count);
+            for (byte action : actions) {
+                if (action != Action.SURRENDER.ordinal()) {
+                    out.writeBits(action, 2);
+                }
+            }
+        }
+
+        private void writeCards(byte[] cards) throws IOException {
+            out.writeBits(cards.length, 5);
+            for (byte code : cards) {
+                out.writeBits(code, 6);
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            out.flush();
+            out.close();
+        }
+    }
+
+    /** Streaming decoder; {@link #next()} returns null at the end of the stream. */
+    public static class Decoder implements AutoCloseable {
+        private BitInput in;
+        private List<String> players;
+        private long lastTimestamp;
+        private int lastBet;
+        private int lastEarnings;
+        private boolean sideBets;
+
+        public Decoder(InputStream stream) throws IOException {
+            this.in = new BitInput(stream);
+            this.players = new ArrayList<>();
+            long magic = in.readBits(32);
+            if (magic != MAGIC && magic != MAGIC_V1) {
+                throw new IOException("Not a hand history stream");
+            }
+            this.sideBets = magic == MAGIC;
+        }
+
+        public Decoder(File file) throws IOException {
+            this(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+        }
+
+        public RoundResult next() throws IOException {
+            long timestampDelta;
+            try {
+                timestampDelta = in.readSignedVarint();
+            } catch (EOFException e) {
+                return null;
+            }
+            long timestamp = lastTimestamp + timestampDelta;
+            lastTimestamp = timestamp;
+
+            int id = (int) in.readVarint();
+            if (id == players.size()) {
+                byte[] name = new byte[(int) in.readVarint()];
+                for (int i = 0; i < name.length; i++) {
+                    name[i] = (byte) in.readBits(8);
+                }
+                players.add(new String(name, StandardCharsets.UTF_8));
+            } else if (id > players.size()) {
+                throw new IOException("Corrupt hand history: unknown player id " + id);
+            }
+            String playerName = players.get(id);
+
+            int base = lastBet + (int) in.readSignedVarint();
+            lastBet = base;
+            int earnings = lastEarnings + (int) in.readSignedVarint();
+            lastEarnings = earnings;
+            int net = (int) in.readSignedVarint();
+            boolean insured = in.readBits(1) == 1;
+            int sideWagered = 0;
+            int sideNet = 0;
+            if (sideBets && in.readBits(1) == 1) {
+                sideWagered = (int) in.readVarint();
+                sideNet = (int) in.readSignedVarint();
+            }
+
+            int hands = (int) in.readBits(3) + 1;
+            Outcome[] outcomes = new Outcome[hands];
+            int[] bets = new int[hands];
+            int[] totals = new int[hands];
+            byte[][] cards = new byte[hands][];
+            int wagered = sideWagered;
+            for (int h = 0; h < hands; h++) {
+                bets[h] = in.readBits(1) == 1 ? 2 * base : base;
+                wagered += bets[h];
+                outcomes[h] = OUTCOMES[(int) in.readBits(3)];
+                cards[h] = readCards();
+                totals[h] = total(cards[h]);
+            }
+            byte[] dealerCards = readCards();
+            int dealerTotal = total(dealerCards);
+
+            int insurance = insured ? base / 2 : 0;
+            wagered += insurance;
+            int[] nets = new int[hands];
+            int accounted = insured
+                    ? (dealerCards.length == 2 && dealerTotal == 21 ? 2 * insurance : -insurance)
+                    : 0;
+            accounted += sideNet;
+            int blackjackHand = -1;
+            for (int h = 0; h < hands; h++) {
+                switch (outcomes[h]) {
+                    case WIN:
+                        nets[h] = bets[h];
+                        break;
+                    case LOSS:
+                        nets[h] = -bets[h];
+                        break;
+                    case SURRENDER:
+                        nets[h] = bets[h] / 2 - bets[h];
+                        break;
+                    case BLACKJACK:
+                        blackjackHand = h;
+                        break;
+                    default:
+                        nets[h] = 0;
+                }
+                accounted += nets[h];
+            }
+            if (blackjackHand >= 0) {
+                nets[blackjackHand] = net - accounted;
+            }
+
+            int count = (int) in.readVarint();
+            boolean surrendered = outcomes[0] == Outcome.SURRENDER;
+            byte[] actions = new byte[surrendered ? count + 1 : count];
+            for (int i = 0; i < count; i++) {
+                actions[i] = (byte) in.readBits(2);
+            }
+            if (surrendered) {
+                actions[count] = (byte) Action.SURRENDER.ordinal();
+            }
+
+            RoundResult result = new RoundResult(playerName, timestamp, wagered, net, earnings, outcomes);
+            result.setHandDetail(bets, nets, totals, cards, dealerCards, dealerTotal);
+            result.setActions(actions, insured);
+            result.setSideBets(sideWagered, sideNet);
+            return result;
+        }
+
+        private byte[] readCards() throws IOException {
+            byte[] cards = new byte[(int) in.readBits(5)];
+            for (int i = 0; i < cards.length; i++) {
+                cards[i] = (byte) in.readBits(6);
+            }
+            return cards;
+        }
+
+        private static int total(byte[] codes) {
+            Hand hand = new Hand();
+            for (byte code : codes) {
+                hand.addCard(Card.of(code));
+            }
+            return hand.getValue();
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static class BitOutput {
+        private OutputStream out;
+        private long buffer;
+        private int bits;
+
+        BitOutput(OutputStream out) {
+            this.out = out;
+        }
+
+        void writeBits(long value, int width) throws IOException {
+            for (int i = width - 1; i >= 0; i--) {
+                buffer = (buffer << 1) | ((value >>> i) & 1);
+                if (++bits == 8) {
+                    out.write((int) buffer);
+                    buffer = 0;
+                    bits = 0;
+                }
+            }
+        }
+
+        void writeVarint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                writeBits((value & 0x7F) | 0x80, 8);
+                value >>>= 7;
+            }
+            writeBits(value, 8);
+        }
+
+        void writeSignedVarint(long value) throws IOException {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        /** Pads the final byte with zeros, which the decoder reads as end of stream. */
+        void flush() throws IOException {
+            if (bits > 0) {
+                out.write((int) (buffer << (8 - bits)));
+                buffer = 0;
+                bits = 0;
+            }
+            out.flush();
+        }
+
+        void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private static class BitInput {
+        private InputStream in;
+        private int current;
+        private int bits;
+
+        BitInput(InputStream in) {
+            this.in = in;
+        }
+
+        long readBits(int width) throws IOException {
+            long value = 0;
+            for (int i = 0; i < width; i++) {
+                if (bits == 0) {
+                    current = in.read();
+                    if (current < 0) {
+                        throw new EOFException();
+                    }
+                    bits = 8;
+                }
+                value = (value << 1) | ((current >>> --bits) & 1);
+            }
+            return value;
+        }
+
+        long readVarint() throws IOException {
+            long value = 0;
+            int shift = 0;
+            long group;
+            do {
+                group = readBits(8);
+                value |= (group & 0x7F) << shift;
+                shift += 7;
+            } while ((group & 0x80) != 0);
+            return value;
+        }
+
+        long readSignedVarint() throws IOException {
+            long raw = readVarint();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        void close() throws IOException {
+            in.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("Usage: HandHistoryCodec <history file>");
+            return;
+        }
+        try (Decoder decoder = new Decoder(new File(args[0]))) {
+            RoundResult round;
+            while ((round = decoder.next()) != null) {
+                StringBuilder line = new StringBuilder();
+                line.append(round.getTimestamp()).append(' ').append(round.getPlayerName())
+                        .append(" net ").append(round.getNet());
+                for (int h = 0; h < round.getOutcomes().length; h++) {
+                    line.append(" | $").append(round.getHandBets()[h]).append(' ');
+                    for (byte code : round.getHandCards()[h]) {
+                        line.append(Card.of(code).getValue()).append(' ');
+                    }
+                    line.append(round.getOutcomes()[h]);
+                }
+                line.append(" | dealer ");
+                for (byte code : round.getDealerCards()) {
+                    line.append(Card.of(code).getValue()).append(' ');
+                }
+                line.append("| ");
+                for (byte action : round.getActions()) {
+                    line.append(Action.values()[action].getCode());
+                }
+                System.out.println(line);
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.blackjack;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Suggests the best action for a hand from {@link StrategyTables}, adjusted
+ * for the cards seen since the shoe was last complete. The seen cards are
+ * tracked incrementally by rank, and a hint is a handful of table reads and
+ * a ten-term dot product per action, so it is cheap enough to compute on
+ * every deal or button press.
+ *
+ * <p>Hit and stay values are adjusted with the tables' effect-of-removal
+ * terms: the difference between the unseen cards and what the table's
+ * representative hand leaves behind, rescaled to the size of the unseen
+ * shoe. Double, split and surrender use the unadjusted full-shoe values for
+ * the exact two cards. Not thread safe; each game owns its own service.
+ */
+public class HintService {
+
+    private static final int RANKS = HouseEdgeCalculator.RANKS;
+    private static final Action[] EXTRAS = { Action.DOUBLE, Action.SPLIT, Action.SURRENDER };
+    private static final int[][][] HINT_CARDS = new int[2][32][];
+
+    static {
+        for (int total = 0; total < 32; total++) {
+            HINT_CARDS[0][total] = StrategyTables.hintCards(false, total);
+            HINT_CARDS[1][total] = StrategyTables.hintCards(true, total);
+        }
+    }
+
+    private StrategyTables tables;
+    private int[] shoe;
+    private int[] unseen;
+    private int remaining;
+    private double hitValue;
+    private double stayValue;
+
+    public HintService(StrategyTables tables) {
+        this.tables = tables;
+        this.shoe = HouseEdgeCalculator.fullShoe(tables.getDecks());
+        this.unseen = new int[RANKS];
+        reset();
+    }
+
+    /** Starts tracking a complete shoe. */
+    public void reset() {
+        System.arraycopy(shoe, 0, unseen, 0, RANKS);
+        remaining = HouseEdgeCalculator.total(shoe);
+    }
+
+    public void cardSeen(Card card) {
+        unseen[HouseEdgeCalculator.rankIndex(card.getValue())]--;
+        remaining--;
+    }
+
+    /** Records a seen card going back into the shoe, as a continuous shuffler does. */
+    public void cardReturned(Card card) {
+        unseen[HouseEdgeCalculator.rankIndex(card.getValue())]++;
+        remaining++;
+    }
+
+    public int unseen(int rank) {
+        return unseen[rank];
+    }
+
+    public Action bestAction(Hand hand, Card upcard, int allowedActions) {
+        int first = -1;
+        int second = -1;
+        int hard = 0;
+        boolean ace = false;
+        for (Card card : hand.getCards()) {
+            int rank = HouseEdgeCalculator.rankIndex(card.getValue());
+            if (first < 0) {
+                first = rank;
+            } else if (second < 0) {
+                second = rank;
+            }
+            hard += card.getHardPoints();
+            ace |= card.isAce();
+        }
+        return bestAction(HouseEdgeCalculator.rankIndex(upcard.getValue()), first, second, hard, ace, hand.size(),
+                allowedActions);
+    }
+
+    /**
+     * The action with the highest expectation among {@code allowedActions}.
+     * {@code first} and {@code second} are the ranks of the hand's first two
+     * cards and only matter when it has exactly two. The hit and stay values
+     * behind the answer are available from {@link #getHitValue()} and
+     * {@link #getStayValue()} until the next call.
+     */
+    public Action bestAction(int up, int first, int second, int hard, boolean ace, int cardCount,
+            int allowedActions) {
+        boolean soft = ace && hard + 10 <= 21;
+        int total = soft ? hard + 10 : hard;
+        hitValue = total >= 21 ? -1 : adjusted(up, soft, total, Action.HIT);
+        stayValue = adjusted(up, soft, total, Action.STAY);
+
+        Action best = Action.STAY;
+        double bestValue = stayValue;
+        if (Action.HIT.isAllowed(allowedActions) && hitValue > bestValue) {
+            best = Action.HIT;
+            bestValue = hitValue;
+        }
+        if (cardCount == 2) {
+            for (Action action : EXTRAS) {
+                if (action.isAllowed(allowedActions)) {
+                    double value = tables.value(up, first, second, action);
+                    if (value > bestValue) {
+                        best = action;
+                        bestValue = value;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private double adjusted(int up, boolean soft, int total, Action action) {
+        double value = tables.hintValue(up, soft, total, action, 0);
+        int[] cards = HINT_CARDS[soft ? 1 : 0][total];
+        if (cards == null || remaining <= 0) {
+            return value;
+        }
+        // The table already removed its representative hand and the upcard from the full shoe.
+        int tableRemaining = HouseEdgeCalculator.total(shoe) - cards.length - 1;
+        double scale = (double) tableRemaining / remaining;
+        for (int rank = 0; rank < RANKS; rank++) {
+            int tableCount = shoe[rank] - (rank == up ? 1 : 0);
+            for (int card : cards) {
+                if (card == rank) {
+                    tableCount--;
+                }
+            }
+            double removed = tableCount * (double) remaining / tableRemaining - unseen[rank];
+            value += removed * scale * tables.hintValue(up, soft, total, action, 1 + rank);
+        }
+        return value;
+    }
+
+    public double getHitValue() {
+        return hitValue;
+    }
+
+    public double getStayValue() {
+        return stayValue;
+    }
+
+    public StrategyTables getTables() {
+        return tables;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int decks = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        HintService hints = new HintService(StrategyTables.load(new File("strategy_cache"), Rules.standard(), decks));
+        RandomSource random = RandomAlgorithm.XOSHIRO256PP.create(1);
+        Deck deck = new Deck(decks, random, ShuffleMode.LAZY);
+        int allowed = Action.HIT.mask() | Action.STAY.mask() | Action.DOUBLE.mask() | Action.SURRENDER.mask();
+
+        int samples = 1_000_000;
+        long[] latencies = new long[samples];
+        int checksum = 0;
+        for (int i = 0; i < samples; i++) {
+            if (deck.size() < deck.capacity() / 4) {
+                deck.reset();
+                hints.reset();
+            }
+            Card c1 = deck.dealCard();
+            Card c2 = deck.dealCard();
+            Card up = deck.dealCard();
+            hints.cardSeen(c1);
+            hints.cardSeen(c2);
+            hints.cardSeen(up);
+            int hard = c1.getHardPoints() + c2.getHardPoints();
+            long started = System.nanoTime();
+            Action action = hints.bestAction(HouseEdgeCalculator.rankIndex(up.getValue()),
+                    HouseEdgeCalculator.rankIndex(c1.getValue()), HouseEdgeCalculator.rankIndex(c2.getValue()),
+                    hard, c1.isAce() || c2.isAce(), 2, allowed);
+            latencies[i] = System.nanoTime() - started;
+            checksum += action.ordinal();
+        }
+        Arrays.sort(latencies);
+        System.out.printf("Hints:  %,d (checksum %d)%n", samples, checksum);
+        System.out.printf("p50:    %.2f us%n", latencies[samples / 2] / 1e3);
+        System.out.printf("p99:    %.2f us%n", latencies[samples * 99 / 100] / 1e3);
+        System.out.printf("p99.9:  %.2f us%n", latencies[samples * 999 / 1000] / 1e3);
+    }
+}
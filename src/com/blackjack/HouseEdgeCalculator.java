@@ -0,0 +1,411 @@
+package com.blackjack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes the player's expectation for a ruleset and shoe size by
+ * enumerating the player and dealer draw trees. Each of the 550 starting
+ * deals (upcard and unordered two-card hand) is one fork/join task; dealer
+ * outcome probabilities and player hit/stand values are memoized by the
+ * remaining shoe composition and shared between tasks.
+ *
+ * <p>Like most combinatorial analyzers this uses two standard simplifications:
+ * the dealer's hole card is treated as drawn after the player's cards
+ * (conditioned on not giving the dealer blackjack when the dealer peeks), and
+ * a split is valued as two independent hands with no resplitting.
+ */
+public class HouseEdgeCalculator {
+
+    public static final int RANKS = 10;
+    public static final int ACE = 0;
+    public static final int TEN = 9;
+
+    private static final int BUST = 5;
+    private static final int CONTEXTS = RANKS + 1;
+
+    private Rules rules;
+    private int decks;
+    private int[] shoe;
+    private double blackjackPays;
+    private List<ConcurrentHashMap<Long, double[]>> dealerMemo;
+    private List<ConcurrentHashMap<Long, Double>> playerMemo;
+
+    public HouseEdgeCalculator(Rules rules, int decks) {
+        this(rules, fullShoe(decks));
+    }
+
+    /** A calculator for an arbitrary starting composition, indexed by rank. */
+    HouseEdgeCalculator(Rules rules, int[] shoe) {
+        this.rules = rules;
+        this.decks = (total(shoe) + Card.DECK_SIZE - 1) / Card.DECK_SIZE;
+        this.shoe = shoe.clone();
+        this.blackjackPays = (double) rules.getBlackjackNumerator() / rules.getBlackjackDenominator();
+        this.dealerMemo = new ArrayList<>();
+        for (int i = 0; i < RANKS; i++) {
+            dealerMemo.add(new ConcurrentHashMap<Long, double[]>());
+        }
+        this.playerMemo = new ArrayList<>();
+        for (int i = 0; i < RANKS * CONTEXTS; i++) {
+            playerMemo.add(new ConcurrentHashMap<Long, Double>());
+        }
+    }
+
+    public static int[] fullShoe(int decks) {
+        if (decks < 1 || decks > 15) {
+            throw new IllegalArgumentException("Decks must be between 1 and 15");
+        }
+        int[] shoe = new int[RANKS];
+        for (Card.Value value : Card.Value.values()) {
+            shoe[rankIndex(value)] += decks * Card.Suit.values().length;
+        }
+        return shoe;
+    }
+
+    public static int rankIndex(Card.Value value) {
+        return value == Card.Value.ACE ? ACE : value.getNumericValue() - 1;
+    }
+
+    public static int points(int rank) {
+        return rank + 1;
+    }
+
+    public Rules getRules() {
+        return rules;
+    }
+
+    public int getDecks() {
+        return decks;
+    }
+
+    /** Expected return per unit of initial bet; the house edge is its negation. */
+    public double playerExpectation() {
+        return playerExpectation(ForkJoinPool.commonPool());
+    }
+
+    public double playerExpectation(ForkJoinPool pool) {
+        List<int[]> deals = new ArrayList<>();
+        for (int up = 0; up < RANKS; up++) {
+            for (int c1 = 0; c1 < RANKS; c1++) {
+                for (int c2 = c1; c2 < RANKS; c2++) {
+                    deals.add(new int[] {up, c1, c2});
+                }
+            }
+        }
+        return pool.invoke(new DealTask(deals, 0, deals.size()));
+    }
+
+    /**
+     * Probabilities of the dealer finishing on 17 through 21 or busting, given
+     * the upcard and the cards still in the shoe, conditioned on the dealer
+     * not holding blackjack when the upcard is an ace or ten.
+     */
+    public double[] dealerProbabilities(int[] comp, int up) {
+        long key = key(comp);
+        ConcurrentHashMap<Long, double[]> memo = dealerMemo.get(up);
+        double[] probabilities = memo.get(key);
+        if (probabilities != null) {
+            return probabilities;
+        }
+
+        probabilities = new double[BUST + 1];
+        int excluded = up == ACE ? TEN : up == TEN ? ACE : -1;
+        int remaining = total(comp) - (excluded < 0 ? 0 : comp[excluded]);
+        for (int hole = 0; hole < RANKS; hole++) {
+            if (hole == excluded || comp[hole] == 0) {
+                continue;
+            }
+            double p = (double) comp[hole] / remaining;
+            comp[hole]--;
+            dealerDraw(comp, points(up) + points(hole), up == ACE || hole == ACE, p, probabilities);
+            comp[hole]++;
+        }
+        memo.put(key, probabilities);
+        return probabilities;
+    }
+
+    private void dealerDraw(int[] comp, int hard, boolean ace, double p, double[] out) {
+        if (hard > 21) {
+            out[BUST] += p;
+            return;
+        }
+        boolean soft = ace && hard + 10 <= 21;
+        int value = soft ? hard + 10 : hard;
+        if (!rules.dealerHits(value, soft)) {
+            out[value - Rules.DEALER_MINIMUM] += p;
+            return;
+        }
+        int remaining = total(comp);
+        for (int rank = 0; rank < RANKS; rank++) {
+            if (comp[rank] == 0) {
+                continue;
+            }
+            double q = p * comp[rank] / remaining;
+            comp[rank]--;
+            dealerDraw(comp, hard + points(rank), ace || rank == ACE, q, out);
+            comp[rank]++;
+        }
+    }
+
+    /** Expectation of standing on {@code value} against the given upcard. */
+    public double stand(int[] comp, int value, int up) {
+        if (value > 21) {
+            return -1;
+        }
+        double[] dealer = dealerProbabilities(comp, up);
+        double ev = dealer[BUST];
+        for (int i = 0; i < BUST; i++) {
+            int dealerValue = Rules.DEALER_MINIMUM + i;
+            if (value > dealerValue) {
+                ev += dealer[i];
+            } else if (value < dealerValue) {
+                ev -= dealer[i];
+            }
+        }
+        return ev;
+    }
+
+    /** Expectation of taking exactly one more card and then playing on optimally. */
+    public double hit(int[] comp, int hard, boolean ace, int up, int context) {
+        int remaining = total(comp);
+        double ev = 0;
+        for (int rank = 0; rank < RANKS; rank++) {
+            if (comp[rank] == 0) {
+                continue;
+            }
+            double p = (double) comp[rank] / remaining;
+            int newHard = hard + points(rank);
+            if (newHard > 21) {
+                ev -= p;
+                continue;
+            }
+            comp[rank]--;
+            ev += p * hitOrStand(comp, newHard, ace || rank == ACE, up, context);
+            comp[rank]++;
+        }
+        return ev;
+    }
+
+    private double hitOrStand(int[] comp, int hard, boolean ace, int up, int context) {
+        int value = value(hard, ace);
+        if (value >= 21) {
+            return stand(comp, value, up);
+        }
+        long key = key(comp);
+        ConcurrentHashMap<Long, Double> memo = playerMemo.get(up * CONTEXTS + context);
+        Double cached = memo.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        double ev = Math.max(stand(comp, value, up), hit(comp, hard, ace, up, context));
+        memo.put(key, ev);
+        return ev;
+    }
+
+    public double doubleDown(int[] comp, int hard, boolean ace, int up) {
+        int remaining = total(comp);
+        double ev = 0;
+        for (int rank = 0; rank < RANKS; rank++) {
+            if (comp[rank] == 0) {
+                continue;
+            }
+            double p = (double) comp[rank] / remaining;
+            comp[rank]--;
+            ev += p * stand(comp, value(hard + points(rank), ace || rank == ACE), up);
+            comp[rank]++;
+        }
+        return 2 * ev;
+    }
+
+    public double split(int[] comp, int pair, int up) {
+        int remaining = total(comp);
+        int context = 1 + pair;
+        double ev = 0;
+        for (int rank = 0; rank < RANKS; rank++) {
+            if (comp[rank] == 0) {
+                continue;
+            }
+            double p = (double) comp[rank] / remaining;
+            comp[rank]--;
+            int hard = points(pair) + points(rank);
+            boolean ace = pair == ACE || rank == ACE;
+            int value = value(hard, ace);
+            int allowed = rules.allowedActions(value, true, false, true, pair == ACE, false);
+
+            double handEv = stand(comp, value, up);
+            if (Action.HIT.isAllowed(allowed)) {
+                handEv = Math.max(handEv, hit(comp, hard, ace, up, context));
+            }
+            if (Action.DOUBLE.isAllowed(allowed)) {
+                handEv = Math.max(handEv, doubleDown(comp, hard, ace, up));
+            }
+            ev += p * handEv;
+            comp[rank]++;
+        }
+        return 2 * ev;
+    }
+
+    /**
+     * Expectation of each action for a starting deal, indexed by {@link Action}
+     * ordinal and conditioned on the dealer not holding blackjack. Actions the
+     * rules do not allow are {@code NaN}.
+     */
+    public double[] actionValues(int up, int c1, int c2) {
+        int[] comp = shoe.clone();
+        comp[c1]--;
+        comp[c2]--;
+        comp[up]--;
+
+        double[] values = new double[Action.values().length];
+        Arrays.fill(values, Double.NaN);
+        int hard = points(c1) + points(c2);
+        boolean ace = c1 == ACE || c2 == ACE;
+        int value = value(hard, ace);
+        int allowed = rules.allowedActions(value, true, c1 == c2, false, false, rules.getMaxHands() > 1);
+        values[Action.STAY.ordinal()] = stand(comp, value, up);
+        if (Action.HIT.isAllowed(allowed)) {
+            values[Action.HIT.ordinal()] = hit(comp, hard, ace, up, 0);
+        }
+        if (Action.DOUBLE.isAllowed(allowed)) {
+            values[Action.DOUBLE.ordinal()] = doubleDown(comp, hard, ace, up);
+        }
+        if (Action.SPLIT.isAllowed(allowed)) {
+            values[Action.SPLIT.ordinal()] = split(comp, c1, up);
+        }
+        if (Action.SURRENDER.isAllowed(allowed)) {
+            values[Action.SURRENDER.ordinal()] = -0.5;
+        }
+        return values;
+    }
+
+    private double evaluateDeal(int up, int c1, int c2) {
+        int[] comp = shoe.clone();
+        comp[c1]--;
+        comp[c2]--;
+        comp[up]--;
+
+        double dealerBlackjack = 0;
+        if (up == ACE) {
+            dealerBlackjack = (double) comp[TEN] / total(comp);
+        } else if (up == TEN) {
+            dealerBlackjack = (double) comp[ACE] / total(comp);
+        }
+
+        if (value(points(c1) + points(c2), c1 == ACE || c2 == ACE) == 21) {
+            return (1 - dealerBlackjack) * blackjackPays;
+        }
+
+        double best = Double.NEGATIVE_INFINITY;
+        for (double value : actionValues(up, c1, c2)) {
+            if (value > best) {
+                best = value;
+            }
+        }
+        return dealerBlackjack * -1 + (1 - dealerBlackjack) * best;
+    }
+
+    private double dealProbability(int up, int c1, int c2) {
+        int[] comp = shoe.clone();
+        double p = (double) comp[c1]-- / total(shoe);
+        p *= (double) comp[up]-- / (total(shoe) - 1);
+        p *= (double) comp[c2] / (total(shoe) - 2);
+        return c1 == c2 ? p : 2 * p;
+    }
+
+    public static int value(int hard, boolean ace) {
+        return ace && hard + 10 <= 21 ? hard + 10 : hard;
+    }
+
+    public static int total(int[] comp) {
+        int total = 0;
+        for (int count : comp) {
+            total += count;
+        }
+        return total;
+    }
+
+    public static long key(int[] comp) {
+        long key = 0;
+        for (int rank = 0; rank < TEN; rank++) {
+            key |= (long) comp[rank] << (6 * rank);
+        }
+        return key | (long) comp[TEN] << 54;
+    }
+
+    private class DealTask extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+
+        private List<int[]> deals;
+        private int from;
+        private int to;
+
+        DealTask(List<int[]> deals, int from, int to) {
+            this.deals = deals;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from == 1) {
+                int[] deal = deals.get(from);
+                return dealProbability(deal[0], deal[1], deal[2]) * evaluateDeal(deal[0], deal[1], deal[2]);
+            }
+            int middle = (from + to) >>> 1;
+            DealTask left = new DealTask(deals, from, middle);
+            left.fork();
+            double right = new DealTask(deals, middle, to).compute();
+            return left.join() + right;
+        }
+    }
+
+    public static void main(String[] args) {
+        Rules.Builder builder = new Rules.Builder();
+        int decks = 6;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--decks":
+                    decks = Integer.parseInt(args[++i]);
+                    break;
+                case "--h17":
+                    builder.hitSoft17(true);
+                    break;
+                case "--no-das":
+                    builder.doubleAfterSplit(false);
+                    break;
+                case "--no-surrender":
+                    builder.surrender(false);
+                    break;
+                case "--no-split":
+                    builder.maxHands(1);
+                    break;
+                case "--bj":
+                    String[] payout = args[++i].split(":");
+                    builder.blackjackPays(Integer.parseInt(payout[0]), Integer.parseInt(payout[1]));
+                    break;
+                case "--double":
+                    String range = args[++i];
+                    builder.doubleOn(range.equals("9-11") ? Rules.DoubleOn.NINE_TO_ELEVEN
+                            : range.equals("10-11") ? Rules.DoubleOn.TEN_OR_ELEVEN : Rules.DoubleOn.ANY_TWO);
+                    break;
+                default:
+                    System.out.println("Unknown option: " + args[i]);
+                    return;
+            }
+        }
+
+        HouseEdgeCalculator calculator = new HouseEdgeCalculator(builder.build(), decks);
+        long started = System.nanoTime();
+        double expectation = calculator.playerExpectation();
+        long elapsed = System.nanoTime() - started;
+
+        System.out.println("Rules:       " + calculator.getRules());
+        System.out.println("Decks:       " + decks);
+        System.out.printf("House edge:  %.4f%%%n", -100 * expectation);
+        System.out.printf("Computed in: %.2f s%n", elapsed / 1e9);
+    }
+}
@@ -0,0 +1,45 @@
+package com.blackjack;
+
+/**
+ * LXM generator combining a 64-bit LCG with xoroshiro128 and the lea64
+ * mixer, following the L64X128MixRandom algorithm from JDK 17.
+ */
+public class L64X128MixRandom implements RandomSource {
+    private static final long M = 0xd1342543de82ef95L;
+
+    private long a;
+    private long s;
+    private long x0;
+    private long x1;
+
+    public L64X128MixRandom(long seed) {
+        a = RandomAlgorithm.mix64(seed += RandomAlgorithm.GOLDEN_GAMMA) | 1;
+        s = RandomAlgorithm.mix64(seed += RandomAlgorithm.GOLDEN_GAMMA);
+        x0 = RandomAlgorithm.mix64(seed += RandomAlgorithm.GOLDEN_GAMMA);
+        x1 = RandomAlgorithm.mix64(seed + RandomAlgorithm.GOLDEN_GAMMA);
+        if ((x0 | x1) == 0) {
+            x0 = RandomAlgorithm.GOLDEN_GAMMA;
+        }
+    }
+
+    @Override
+    public long nextLong() {
+        long z = s + x0;
+        s = M * s + a;
+        long q0 = x0;
+        long q1 = x1;
+        q1 ^= q0;
+        q0 = Long.rotateLeft(q0, 24);
+        q0 = q0 ^ q1 ^ (q1 << 16);
+        q1 = Long.rotateLeft(q1, 37);
+        x0 = q0;
+        x1 = q1;
+        return mixLea64(z);
+    }
+
+    private static long mixLea64(long z) {
+        z = (z ^ (z >>> 32)) * 0xdaba0b6eb09322e3L;
+        z = (z ^ (z >>> 32)) * 0xdaba0b6eb09322e3L;
+        return z ^ (z >>> 32);
+    }
+}
@@ -0,0 +1,225 @@
+package com.blackjack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Top players by earnings and by win rate, updated from settled rounds in
+ * O(log n). Standings are immutable and versioned, and each ranking is a
+ * concurrent skip list. An update replaces a player's standing inside the
+ * standings map's compute for that player, so updates to one player are
+ * ordered and updates to different players run in parallel. Nothing here
+ * blocks a reader.
+ *
+ * <p>Reads of up to {@value #SNAPSHOT_SIZE} places come from an immutable
+ * array of the top of each ranking, republished after any update that can
+ * change it, so a reader gets one array that no writer touches again.
+ * Whichever writer finds no republish running does it, repeating while
+ * other writers mark it stale, so writers never wait for each other and the
+ * array is exact once updates pause. Longer lists walk the skip list
+ * directly. Both are built from weakly consistent walks: each player appears
+ * at most once, but one whose standing moves during the walk can be missed
+ * or listed at their previous place until the next republish.
+ */
+public class Leaderboard implements RoundListener {
+
+    private static final Comparator<Standing> BY_EARNINGS = (a, b) -> {
+        int c = Long.compare(b.earnings, a.earnings);
+        if (c != 0) {
+            return c;
+        }
+        c = a.name.compareTo(b.name);
+        return c != 0 ? c : Long.compare(a.version, b.version);
+    };
+
+    private static final Comparator<Standing> BY_WIN_RATE = (a, b) -> {
+        int c = Long.compare(b.wins * a.hands, a.wins * b.hands);
+        if (c != 0) {
+            return c;
+        }
+        c = Long.compare(b.hands, a.hands);
+        if (c != 0) {
+            return c;
+        }
+        c = a.name.compareTo(b.name);
+        return c != 0 ? c : Long.compare(a.version, b.version);
+    };
+
+    static final int SNAPSHOT_SIZE = 100;
+
+    /** One ranking and the published snapshot of its top. */
+    private static class Ranking {
+        private ConcurrentSkipListSet<Standing> standings;
+        private AtomicReference<Standing[]> top;
+        private AtomicBoolean stale;
+        private AtomicBoolean publishing;
+
+        Ranking(Comparator<Standing> order) {
+            this.standings = new ConcurrentSkipListSet<>(order);
+            this.top = new AtomicReference<>(new Standing[0]);
+            this.stale = new AtomicBoolean();
+            this.publishing = new AtomicBoolean();
+        }
+
+        /**
+         * Called after {@code old} was replaced by {@code updated}. A
+         * republish already running may have read the ranking before the
+         * change, so it is always marked stale; otherwise the current
+         * snapshot was built after the change or is compared against it.
+         */
+        void changed(Standing old, Standing updated) {
+            if (publishing.get() || affects(top.get(), old, updated)) {
+                stale.set(true);
+                while (stale.get() && publishing.compareAndSet(false, true)) {
+                    try {
+                        stale.set(false);
+                        top.set(collect(SNAPSHOT_SIZE).toArray(new Standing[0]));
+                    } finally {
+                        publishing.set(false);
+                    }
+                }
+            }
+        }
+
+        private boolean affects(Standing[] snapshot, Standing old, Standing updated) {
+            if (snapshot.length < SNAPSHOT_SIZE
+                    || updated != null && standings.comparator().compare(updated, snapshot[snapshot.length - 1]) < 0) {
+                return true;
+            }
+            for (int i = 0; old != null && i < snapshot.length; i++) {
+                if (snapshot[i] == old) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** The first {@code k} players, each listed once at the first of their standings found. */
+        List<Standing> collect(int k) {
+            List<Standing> top = new ArrayList<>(Math.min(k, SNAPSHOT_SIZE));
+            Set<String> listed = new HashSet<>();
+            for (Standing standing : standings) {
+                if (top.size() == k) {
+                    break;
+                }
+                if (listed.add(standing.name)) {
+                    top.add(standing);
+                }
+            }
+            return top;
+        }
+
+        List<Standing> top(int k) {
+            if (k > SNAPSHOT_SIZE) {
+                return collect(k);
+            }
+            Standing[] snapshot = top.get();
+            return new ArrayList<>(Arrays.asList(snapshot).subList(0, Math.min(k, snapshot.length)));
+        }
+    }
+
+    private int minHandsForWinRate;
+    private ConcurrentHashMap<String, Standing> standings;
+    private Ranking byEarnings;
+    private Ranking byWinRate;
+
+    public Leaderboard() {
+        this(20);
+    }
+
+    public Leaderboard(int minHandsForWinRate) {
+        this.minHandsForWinRate = minHandsForWinRate;
+        this.standings = new ConcurrentHashMap<>();
+        this.byEarnings = new Ranking(BY_EARNINGS);
+        this.byWinRate = new Ranking(BY_WIN_RATE);
+    }
+
+    @Override
+    public void roundSettled(RoundResult result) {
+        update(result.getPlayerName(), result.getEarnings(), result.wins(), result.getOutcomes().length);
+    }
+
+    public void update(String name, long earnings, int wins, int hands) {
+        Standing[] replaced = new Standing[2];
+        standings.compute(name, (key, old) -> {
+            Standing updated = old == null
+                    ? new Standing(name, earnings, wins, hands, 0)
+                    : new Standing(name, earnings, old.wins + wins, old.hands + hands, old.version + 1);
+            // Add before removing, so a reader walking the ranking finds the player at one of the two places
+            byEarnings.standings.add(updated);
+            if (updated.hands >= minHandsForWinRate) {
+                byWinRate.standings.add(updated);
+            }
+            if (old != null) {
+                byEarnings.standings.remove(old);
+                byWinRate.standings.remove(old);
+            }
+            replaced[0] = old;
+            replaced[1] = updated;
+            return updated;
+        });
+        byEarnings.changed(replaced[0], replaced[1]);
+        byWinRate.changed(replaced[0], replaced[1].hands >= minHandsForWinRate ? replaced[1] : null);
+    }
+
+    public Standing get(String name) {
+        return standings.get(name);
+    }
+
+    public List<Standing> topByEarnings(int k) {
+        return byEarnings.top(k);
+    }
+
+    public List<Standing> topByWinRate(int k) {
+        return byWinRate.top(k);
+    }
+
+    public static class Standing {
+        private final String name;
+        private final long earnings;
+        private final long wins;
+        private final long hands;
+        private final long version;
+
+        Standing(String name, long earnings, long wins, long hands, long version) {
+            this.name = name;
+            this.earnings = earnings;
+            this.wins = wins;
+            this.hands = hands;
+            this.version = version;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getEarnings() {
+            return earnings;
+        }
+
+        public long getWins() {
+            return wins;
+        }
+
+        public long getHands() {
+            return hands;
+        }
+
+        public double getWinRate() {
+            return hands == 0 ? 0 : (double) wins / hands;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: $%d, %d/%d won (%.1f%%)", name, earnings, wins, hands, 100 * getWinRate());
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.blackjack;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Runs synthetic players against the real {@link Game} round flow, one thread
+ * per table of {@code --seats} players, and reports throughput, round latency
+ * percentiles and allocation per round.
+ *
+ * <pre>
+ * java com.blackjack.LoadTest --players 8 --seats 1 --rounds 100000 --bet 10-50 --stand 17 --data /tmp/load.txt
+ *     --rng xoshiro256pp --shuffle continuous --decks 6 --segmented /tmp/round_log --leaderboard 5
+ *     --journal /tmp/journal.dat --durability round --seed 42 --side-bet 5
+ * </pre>
+ *
+ * With {@code --seed} every table's shoe draws from its own stream of one
+ * {@link RandomStreams}, so the deals are repeatable from run to run.
+ *
+ * The first seat at every table is topped up whenever it runs low, so the
+ * table keeps dealing. The other seats play on their opening balance and leave
+ * once they cannot cover the minimum bet; the run fails if any table stops
+ * dealing before all of its rounds are played.
+ */
+public class LoadTest {
+
+    private int players = Runtime.getRuntime().availableProcessors();
+    private int seats = 1;
+    private int rounds = 100_000;
+    private int warmupRounds = 10_000;
+    private int minBet = 10;
+    private int maxBet = 50;
+    private int standOn = 17;
+    private String dataFile;
+    private String segmentedLog;
+    private Leaderboard leaderboard;
+    private int leaderboardSize;
+    private RandomAlgorithm algorithm = RandomAlgorithm.XOSHIRO256PP;
+    private ShuffleMode shuffleMode = ShuffleMode.LAZY;
+    private int decks = 1;
+    private String journalFile;
+    private RoundJournal.Durability durability = RoundJournal.Durability.NONE;
+    private RandomStreams streams;
+    private long seed;
+    private boolean seeded;
+    private int sideBet;
+
+    public static void main(String[] args) throws Exception {
+        LoadTest test = new LoadTest();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            String value = i + 1 < args.length ? args[++i] : "";
+            switch (arg) {
+                case "--players":
+                    test.players = Integer.parseInt(value);
+                    break;
+                case "--seats":
+                    test.seats = Integer.parseInt(value);
+                    break;
+                case "--rounds":
+                    test.rounds = Integer.parseInt(value);
+                    break;
+                case "--warmup":
+                    test.warmupRounds = Integer.parseInt(value);
+                    break;
+                case "--bet":
+                    int dash = value.indexOf('-');
+                    test.minBet = Integer.parseInt(dash < 0 ? value : value.substring(0, dash));
+                    test.maxBet = Integer.parseInt(dash < 0 ? value : value.substring(dash + 1));
+                    break;
+                case "--stand":
+                    test.standOn = Integer.parseInt(value);
+                    break;
+                case "--data":
+                    test.dataFile = value;
+                    break;
+                case "--segmented":
+                    test.segmentedLog = value;
+                    break;
+                case "--leaderboard":
+                    test.leaderboard = new Leaderboard();
+                    test.leaderboardSize = Integer.parseInt(value);
+                    break;
+                case "--rng":
+                    test.algorithm = RandomAlgorithm.valueOf(value.toUpperCase());
+                    break;
+                case "--shuffle":
+                    test.shuffleMode = ShuffleMode.valueOf(value.toUpperCase());
+                    break;
+                case "--decks":
+                    test.decks = Integer.parseInt(value);
+                    break;
+                case "--journal":
+                    test.journalFile = value;
+                    break;
+                case "--durability":
+                    test.durability = RoundJournal.Durability.valueOf(value.toUpperCase());
+                    break;
+                case "--side-bet":
+                    test.sideBet = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    test.seed = Long.parseLong(value);
+                    test.seeded = true;
+                    break;
+                default:
+                    System.out.println("Unknown option: " + arg);
+                    return;
+            }
+        }
+        test.run();
+    }
+
+    public void run() throws InterruptedException, IOException {
+        if (seeded) {
+            streams = new RandomStreams(algorithm, seed);
+        }
+        RoundLog roundLog = segmentedLog == null ? null : new RoundLog(new File(segmentedLog));
+        RoundJournal journal = journalFile == null ? null : new RoundJournal(new File(journalFile), durability);
+        if (dataFile == null) {
+            File file = File.createTempFile("loadtest_game_data", ".txt");
+            file.deleteOnExit();
+            dataFile = file.getPath();
+        }
+
+        Worker[] workers = new Worker[players];
+        CountDownLatch ready = new CountDownLatch(players);
+        CountDownLatch go = new CountDownLatch(1);
+        for (int i = 0; i < players; i++) {
+            List<DecisionSource> table = new ArrayList<>();
+            for (int s = 0; s < seats; s++) {
+                String name = seats == 1 ? "load-" + i : "load-" + i + "-" + s;
+                SyntheticPlayer player = new SyntheticPlayer(name, minBet, maxBet, standOn,
+                        0x5DEECE66DL * (i * seats + s + 1));
+                player.setSideBet(sideBet);
+                table.add(player);
+            }
+            workers[i] = new Worker(i, table, roundLog, journal, ready, go);
+            workers[i].start();
+        }
+
+        ready.await();
+        long started = System.nanoTime();
+        go.countDown();
+        for (Worker worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - started;
+        if (roundLog != null) {
+            roundLog.close();
+        }
+        if (journal != null) {
+            journal.close();
+        }
+
+        long[] latencies = new long[players * rounds];
+        long allocated = 0;
+        long hands = 0;
+        int seatsLeft = 0;
+        for (int i = 0; i < players; i++) {
+            if (workers[i].roundsPlayed != warmupRounds + rounds) {
+                throw new IllegalStateException("Table " + i + " stopped dealing after " + workers[i].roundsPlayed
+                        + " of " + (warmupRounds + rounds) + " rounds");
+            }
+            System.arraycopy(workers[i].latencies, 0, latencies, i * rounds, rounds);
+            allocated += workers[i].allocatedBytes;
+            hands += workers[i].handsPlayed;
+            seatsLeft += workers[i].seatsLeft;
+        }
+        Arrays.sort(latencies);
+
+        long total = (long) players * rounds;
+        System.out.println("Tables:         " + players + " x " + seats + " seats");
+        System.out.println("Rounds:         " + total + " (data file " + dataFile + ")");
+        System.out.println("Seats left:     " + seatsLeft + " of " + players * seats);
+        System.out.printf("Throughput:     %.0f rounds/sec, %.0f hands/sec%n", total / (elapsed / 1e9),
+                hands / (elapsed / 1e9));
+        System.out.printf("Latency p50:    %.1f us%n", percentile(latencies, 0.50) / 1e3);
+        System.out.printf("Latency p99:    %.1f us%n", percentile(latencies, 0.99) / 1e3);
+        System.out.printf("Latency p999:   %.1f us%n", percentile(latencies, 0.999) / 1e3);
+        System.out.printf("Latency max:    %.1f us%n", latencies[latencies.length - 1] / 1e3);
+        if (allocated >= 0) {
+            System.out.printf("Allocation:     %d bytes/round%n", allocated / total);
+        }
+        if (leaderboard != null) {
+            System.out.println("Top by earnings:");
+            for (Leaderboard.Standing standing : leaderboard.topByEarnings(leaderboardSize)) {
+                System.out.println("  " + standing);
+            }
+            System.out.println("Top by win rate:");
+            for (Leaderboard.Standing standing : leaderboard.topByWinRate(leaderboardSize)) {
+                System.out.println("  " + standing);
+            }
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private class Worker extends Thread {
+        private int index;
+        private List<DecisionSource> table;
+        private RoundLog roundLog;
+        private RoundJournal journal;
+        private CountDownLatch ready;
+        private CountDownLatch go;
+        private long[] latencies;
+        private long allocatedBytes;
+        private long handsPlayed;
+        private int roundsPlayed;
+        private int seatsLeft;
+
+        Worker(int index, List<DecisionSource> table, RoundLog roundLog, RoundJournal journal, CountDownLatch ready,
+                CountDownLatch go) {
+            super(table.get(0).playerName());
+            this.index = index;
+            this.table = table;
+            this.roundLog = roundLog;
+            this.journal = journal;
+            this.ready = ready;
+            this.go = go;
+            this.latencies = new long[rounds];
+        }
+
+        @Override
+        public void run() {
+            Game game = new Game(table, new Rules.Builder().sideBets(sideBet > 0).build());
+            game.setDataFile(dataFile);
+            game.setRoundLog(roundLog);
+            game.setJournal(journal);
+            if (leaderboard != null) {
+                game.addRoundListener(leaderboard);
+            }
+            game.setDeck(streams == null ? new Deck(decks, algorithm.create(), shuffleMode)
+                    : streams.deck(index, decks, shuffleMode));
+            game.seatPlayer();
+            for (int i = 0; i < warmupRounds; i++) {
+                playOne(game);
+            }
+
+            ready.countDown();
+            try {
+                go.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            long allocatedBefore = allocatedBytes();
+            for (int i = 0; i < rounds; i++) {
+                long start = System.nanoTime();
+                handsPlayed += playOne(game);
+                latencies[i] = System.nanoTime() - start;
+            }
+            long allocatedAfter = allocatedBytes();
+            allocatedBytes = allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore;
+
+            roundsPlayed = game.getRoundsPlayed();
+            for (Player seated : game.getPlayers()) {
+                if (seated.getEarnings() < game.getRules().getMinBet()) {
+                    seatsLeft++;
+                }
+            }
+        }
+
+        /** Plays a round and returns the number of seats in it; a seat that left never comes back. */
+        private int playOne(Game game) {
+            Player regular = game.getPlayer();
+            if (regular.getEarnings() < maxBet + 2 * sideBet) {
+                regular.setEarnings(regular.getEarnings() + 100 * (maxBet + 2 * sideBet));
+            }
+            int playing = 0;
+            for (Player seated : game.getPlayers()) {
+                if (seated.getEarnings() >= game.getRules().getMinBet()) {
+                    playing++;
+                }
+            }
+            game.playNextRound();
+            return playing;
+        }
+    }
+}
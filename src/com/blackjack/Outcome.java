@@ -0,0 +1,24 @@
+package com.blackjack;
+
+public enum Outcome {
+    WIN("Win"), BLACKJACK("Win"), LOSS("Loss"), PUSH("Push"), SURRENDER("Surrender");
+
+    private String label;
+
+    Outcome(String label) {
+        this.label = label;
+    }
+
+    /** The result word written to the round log. */
+    public String getLabel() {
+        return label;
+    }
+
+    public boolean isWin() {
+        return this == WIN || this == BLACKJACK;
+    }
+
+    public boolean isLoss() {
+        return this == LOSS || this == SURRENDER;
+    }
+}
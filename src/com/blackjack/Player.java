@@ -6,12 +6,13 @@ import java.util.List;
 public class Player {
 	private String name;
     private int earnings;
-    private List<Card> hand;
+    private List<Hand> hands;
 
     public Player(String name) {
         this.name = name;
         this.earnings = 0;
-        this.hand = new ArrayList<>();
+        this.hands = new ArrayList<>();
+        this.hands.add(new Hand());
     }
 
     public String getName() {
@@ -27,33 +28,40 @@ public class Player {
     }
 
     public List<Card> getHand() {
-        return hand;
+        return hands.get(0).getCards();
+    }
+
+    public List<Hand> getHands() {
+        return hands;
     }
 
     public void clearHand() {
-        hand.clear();
+        while (hands.size() > 1) {
+            hands.remove(hands.size() - 1);
+        }
+        hands.get(0).clear();
     }
 
     public void addCardToHand(Card card) {
-        hand.add(card);
+        hands.get(0).addCard(card);
     }
 
-    public int calculateHandValue() {
-        int sum = 0;
-        int numAces = 0;
-
-        for (Card card : hand) {
-            if (card.getValue() == Card.Value.ACE) {
-                numAces++;
-            }
-            sum += card.getValue().getNumericValue();
-        }
-
-        while (sum > 21 && numAces > 0) {
-            sum -= 10;
-            numAces--;
+    public Hand splitHand(int index) {
+        Hand hand = hands.get(index);
+        Hand splitHand = new Hand();
+        splitHand.addCard(hand.removeSecondCard());
+        splitHand.setBet(hand.getBet());
+        splitHand.setSplit(true);
+        hand.setSplit(true);
+        if (splitHand.getCards().get(0).isAce()) {
+            splitHand.setSplitAces(true);
+            hand.setSplitAces(true);
         }
+        hands.add(index + 1, splitHand);
+        return splitHand;
+    }
 
-        return sum;
+    public int calculateHandValue() {
+        return hands.get(0).getValue();
     }
 }
@@ -0,0 +1,310 @@
+package com.blackjack;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-player counters kept up to date as rounds are settled, so stats lookups
+ * never rescan the round log. State is persisted as a snapshot plus a delta
+ * log of the rounds since that snapshot. On open the snapshot is loaded and
+ * only the delta tail is replayed; every {@code compactEvery} deltas the
+ * snapshot is rewritten and the delta log truncated.
+ *
+ * <p>Each snapshot carries a generation number and the delta log starts with
+ * the generation it extends. Compaction renames the new snapshot into place
+ * before truncating the log, so a crash in between leaves a log of the
+ * previous generation, whose deltas the snapshot already holds; replay skips
+ * such a log instead of counting its deltas twice.
+ */
+public class PlayerRollups implements RoundListener, AutoCloseable {
+
+    private static final int SNAPSHOT_MAGIC = 0x424a5232;
+    private static final int SNAPSHOT_MAGIC_V1 = 0x424a5231;
+    private static final int DELTA_MAGIC = 0x424a4431;
+    private static final int DELTA_HEADER = 12;
+    private static final int DEFAULT_COMPACT_EVERY = 100_000;
+
+    private File snapshotFile;
+    private File deltaFile;
+    private int compactEvery;
+    private ConcurrentHashMap<String, Rollup> rollups;
+    private DataOutputStream deltaLog;
+    private int deltasSinceSnapshot;
+    private long generation;
+
+    public PlayerRollups(File directory) throws IOException {
+        this(directory, DEFAULT_COMPACT_EVERY);
+    }
+
+    public PlayerRollups(File directory, int compactEvery) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create rollup directory " + directory);
+        }
+        this.snapshotFile = new File(directory, "player_rollups.snapshot");
+        this.deltaFile = new File(directory, "player_rollups.log");
+        this.compactEvery = compactEvery;
+        this.rollups = new ConcurrentHashMap<>();
+
+        loadSnapshot();
+        this.deltaLog = replayDeltas() ? openDeltaLog() : startDeltaLog();
+    }
+
+    /** Current counters for a player, or null if the player has never played. */
+    public Rollup get(String playerName) {
+        Rollup rollup = rollups.get(playerName);
+        if (rollup == null) {
+            return null;
+        }
+        synchronized (rollup) {
+            return rollup.copy();
+        }
+    }
+
+    public int size() {
+        return rollups.size();
+    }
+
+    @Override
+    public void roundSettled(RoundResult result) {
+        int wins = result.wins();
+        int losses = result.losses();
+        int pushes = result.pushes();
+
+        synchronized (this) {
+            apply(result.getPlayerName(), wins, losses, pushes, result.getNet(), result.getTimestamp());
+            try {
+                writeDelta(deltaLog, result.getPlayerName(), wins, losses, pushes, result.getNet(),
+                        result.getTimestamp());
+                deltaLog.flush();
+                if (++deltasSinceSnapshot >= compactEvery) {
+                    compact();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write player rollup delta", e);
+            }
+        }
+    }
+
+    /** Writes a snapshot of the next generation and starts an empty delta log for it. */
+    public synchronized void compact() throws IOException {
+        deltaLog.close();
+        File temp = new File(snapshotFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(generation + 1);
+            out.writeInt(rollups.size());
+            for (Rollup rollup : rollups.values()) {
+                synchronized (rollup) {
+                    out.writeUTF(rollup.playerName);
+                    out.writeLong(rollup.rounds);
+                    out.writeLong(rollup.wins);
+                    out.writeLong(rollup.losses);
+                    out.writeLong(rollup.pushes);
+                    out.writeLong(rollup.net);
+                    out.writeLong(rollup.lastPlayed);
+                }
+            }
+        }
+        Files.move(temp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        generation++;
+        deltaLog = startDeltaLog();
+        deltasSinceSnapshot = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        compact();
+        deltaLog.close();
+    }
+
+    private void apply(String playerName, int wins, int losses, int pushes, long net, long timestamp) {
+        Rollup rollup = rollups.get(playerName);
+        if (rollup == null) {
+            Rollup created = new Rollup(playerName);
+            rollup = rollups.putIfAbsent(playerName, created);
+            if (rollup == null) {
+                rollup = created;
+            }
+        }
+        synchronized (rollup) {
+            rollup.rounds++;
+            rollup.wins += wins;
+            rollup.losses += losses;
+            rollup.pushes += pushes;
+            rollup.net += net;
+            rollup.lastPlayed = Math.max(rollup.lastPlayed, timestamp);
+        }
+    }
+
+    private void loadSnapshot() throws IOException {
+        if (!snapshotFile.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            int magic = in.readInt();
+            if (magic != SNAPSHOT_MAGIC && magic != SNAPSHOT_MAGIC_V1) {
+                throw new IOException("Not a player rollup snapshot: " + snapshotFile);
+            }
+            generation = magic == SNAPSHOT_MAGIC ? in.readLong() : 0;
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Rollup rollup = new Rollup(in.readUTF());
+                rollup.rounds = in.readLong();
+                rollup.wins = in.readLong();
+                rollup.losses = in.readLong();
+                rollup.pushes = in.readLong();
+                rollup.net = in.readLong();
+                rollup.lastPlayed = in.readLong();
+                rollups.put(rollup.playerName, rollup);
+            }
+        }
+    }
+
+    /**
+     * Replays the delta log if it extends the loaded snapshot, returning
+     * whether it can be appended to. A log without a header predates
+     * generations and extends a generation 0 snapshot.
+     */
+    private boolean replayDeltas() throws IOException {
+        if (!deltaFile.exists() || deltaFile.length() == 0) {
+            return false;
+        }
+        long good = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(deltaFile)))) {
+            in.mark(DELTA_HEADER);
+            long logGeneration = 0;
+            if (deltaFile.length() >= DELTA_HEADER && in.readInt() == DELTA_MAGIC) {
+                logGeneration = in.readLong();
+                good = DELTA_HEADER;
+            } else {
+                in.reset();
+            }
+            if (logGeneration != generation) {
+                return false;
+            }
+            while (true) {
+                String playerName = in.readUTF();
+                int wins = in.readUnsignedByte();
+                int losses = in.readUnsignedByte();
+                int pushes = in.readUnsignedByte();
+                long net = in.readLong();
+                long timestamp = in.readLong();
+                apply(playerName, wins, losses, pushes, net, timestamp);
+                good += 2 + utfLength(playerName) + 3 + 8 + 8;
+                deltasSinceSnapshot++;
+            }
+        } catch (EOFException e) {
+            // a torn final record from a crash is dropped
+        }
+        if (good < deltaFile.length()) {
+            try (RandomAccessFile file = new RandomAccessFile(deltaFile, "rw")) {
+                file.setLength(good);
+            }
+        }
+        return true;
+    }
+
+    private DataOutputStream openDeltaLog() throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(deltaFile, true)));
+    }
+
+    /** Replaces the delta log with an empty one for the current generation. */
+    private DataOutputStream startDeltaLog() throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(deltaFile)));
+        out.writeInt(DELTA_MAGIC);
+        out.writeLong(generation);
+        out.flush();
+        return out;
+    }
+
+    private static void writeDelta(DataOutputStream out, String playerName, int wins, int losses, int pushes,
+            long net, long timestamp) throws IOException {
+        out.writeUTF(playerName);
+        out.writeByte(wins);
+        out.writeByte(losses);
+        out.writeByte(pushes);
+        out.writeLong(net);
+        out.writeLong(timestamp);
+    }
+
+    private static int utfLength(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            length += c >= 0x0001 && c <= 0x007F ? 1 : c > 0x07FF ? 3 : 2;
+        }
+        return length;
+    }
+
+    public static class Rollup {
+        private String playerName;
+        private long rounds;
+        private long wins;
+        private long losses;
+        private long pushes;
+        private long net;
+        private long lastPlayed;
+
+        Rollup(String playerName) {
+            this.playerName = playerName;
+        }
+
+        Rollup copy() {
+            Rollup copy = new Rollup(playerName);
+            copy.rounds = rounds;
+            copy.wins = wins;
+            copy.losses = losses;
+            copy.pushes = pushes;
+            copy.net = net;
+            copy.lastPlayed = lastPlayed;
+            return copy;
+        }
+
+        public String getPlayerName() {
+            return playerName;
+        }
+
+        public long getRounds() {
+            return rounds;
+        }
+
+        public long getWins() {
+            return wins;
+        }
+
+        public long getLosses() {
+            return losses;
+        }
+
+        public long getPushes() {
+            return pushes;
+        }
+
+        public long getNet() {
+            return net;
+        }
+
+        public long getLastPlayed() {
+            return lastPlayed;
+        }
+
+        @Override
+        public String toString() {
+            return playerName + ": " + rounds + " rounds, " + wins + " wins, " + losses + " losses, "
+                    + pushes + " pushes, net $" + net;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.blackjack;
+
+import java.util.SplittableRandom;
+
+public enum RandomAlgorithm {
+    L64X128 {
+        @Override
+        public RandomSource create(long seed) {
+            return new L64X128MixRandom(seed);
+        }
+    },
+    XOSHIRO256PP {
+        @Override
+        public RandomSource create(long seed) {
+            return new Xoshiro256PlusPlus(seed);
+        }
+    },
+    SPLITTABLE {
+        @Override
+        public RandomSource create(long seed) {
+            final SplittableRandom random = new SplittableRandom(seed);
+            return new RandomSource() {
+                @Override
+                public long nextLong() {
+                    return random.nextLong();
+                }
+
+                @Override
+                public int nextInt(int bound) {
+                    return random.nextInt(bound);
+                }
+            };
+        }
+    };
+
+    public abstract RandomSource create(long seed);
+
+    public RandomSource create() {
+        return create(new SplittableRandom().nextLong());
+    }
+
+    /** SplitMix64 step, used to expand a single seed into generator state. */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+}
@@ -0,0 +1,32 @@
+package com.blackjack;
+
+/**
+ * Minimal random number source used for shuffling. Implementations are not
+ * thread safe; each deck owns its own instance.
+ */
+public interface RandomSource {
+
+    long nextLong();
+
+    /** Uniform value in {@code [0, bound)} using Lemire's multiply-shift method. */
+    default int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        long product = (nextLong() >>> 32) * bound;
+        long low = product & 0xFFFFFFFFL;
+        if (low < bound) {
+            long threshold = (0x100000000L - bound) % bound;
+            while (low < threshold) {
+                product = (nextLong() >>> 32) * bound;
+                low = product & 0xFFFFFFFFL;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
+    /** Uniform value in {@code [0, 1)}. */
+    default double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+}
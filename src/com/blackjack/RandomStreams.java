@@ -0,0 +1,73 @@
+package com.blackjack;
+
+import java.util.SplittableRandom;
+
+/**
+ * Hands out independent random streams derived from one master seed, so
+ * parallel simulations are reproducible and no generator is ever shared
+ * between threads.
+ *
+ * <p>{@link #stream(long)} gives the stream for a task index. It depends only
+ * on the master seed and the index, so work split into a fixed set of tasks
+ * produces bit-identical results for any number of threads, as long as
+ * the task results are combined in task order. {@link #nextStream()} hands out
+ * streams in call order instead: by {@link Xoshiro256PlusPlus#split()
+ * jumping} for xoshiro256++, by {@link SplittableRandom#split()} for the
+ * splittable algorithm and by seed derivation for LXM.
+ */
+public class RandomStreams {
+
+    private RandomAlgorithm algorithm;
+    private long masterSeed;
+    private Xoshiro256PlusPlus jumper;
+    private SplittableRandom splitter;
+    private long handedOut;
+
+    public RandomStreams(RandomAlgorithm algorithm, long masterSeed) {
+        this.algorithm = algorithm;
+        this.masterSeed = masterSeed;
+        this.jumper = new Xoshiro256PlusPlus(masterSeed);
+        this.splitter = new SplittableRandom(masterSeed);
+    }
+
+    /** The stream for task {@code index}; the same seed and index always give the same stream. */
+    public RandomSource stream(long index) {
+        return algorithm.create(RandomAlgorithm.mix64(masterSeed + RandomAlgorithm.mix64(index + 1)));
+    }
+
+    /** A shoe shuffled by the stream for task {@code index}. */
+    public Deck deck(long index, int decks, ShuffleMode mode) {
+        return new Deck(decks, stream(index), mode);
+    }
+
+    /** The next stream in hand-out order. */
+    public synchronized RandomSource nextStream() {
+        switch (algorithm) {
+            case XOSHIRO256PP:
+                return jumper.split();
+            case SPLITTABLE:
+                final SplittableRandom random = splitter.split();
+                return new RandomSource() {
+                    @Override
+                    public long nextLong() {
+                        return random.nextLong();
+                    }
+
+                    @Override
+                    public int nextInt(int bound) {
+                        return random.nextInt(bound);
+                    }
+                };
+            default:
+                return stream(handedOut++);
+        }
+    }
+
+    public RandomAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public long getMasterSeed() {
+        return masterSeed;
+    }
+}
@@ -0,0 +1,367 @@
+package com.blackjack;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Memory-mapped ring of fixed-size slots recording each round transition:
+ * bet reserved, cards dealt, actions and settlement. Writes go straight into
+ * the mapped file, so they survive the process dying without any fsync; the
+ * {@link Durability} level decides how often the mapping is also forced to
+ * disk to survive a machine crash.
+ *
+ * <p>The journal is not a balance store. A settlement record carries the
+ * round's change to the player's balance, and once that change has been
+ * added to the durable store an applied record follows it. On open the ring
+ * is scanned: a seat whose round has a bet but no settlement is rolled back,
+ * which needs nothing from the store since only settled rounds reach it, and
+ * a rollback record is written so it is not rolled back twice. Settlements
+ * without an applied record are the deltas the store never saw;
+ * {@link #unappliedDelta} hands them out and {@link #markApplied} records
+ * that they have been replayed. A crash between a store write and its
+ * applied record replays that one delta again.
+ *
+ * <p>Each journal file belongs to one process: opening takes an exclusive
+ * lock on it, and {@link #claim} picks the first journal in a directory that
+ * no running table holds, so a crashed table's journal is recovered by the
+ * next one to start.
+ *
+ * <p>Each 64-byte slot holds, little-endian:
+ *
+ * <pre>
+ * sequence, timestamp, round    3 longs
+ * type, seat, payload length    3 bytes, 1 byte padding
+ * earnings, amount              2 ints
+ * payload                       24 bytes (player name, card codes or action)
+ * crc32 of the above            int
+ * </pre>
+ *
+ * A slot whose checksum does not match, such as one torn by a crash, is
+ * ignored.
+ */
+public class RoundJournal implements AutoCloseable {
+
+    public enum Durability {
+        /** Never force; survives process crashes only. */
+        NONE,
+        /** Force once a round is settled. */
+        ROUND,
+        /** Force after every record. */
+        ACTION
+    }
+
+    public static final int DEFAULT_SLOTS = 1 << 16;
+
+    static final byte BET = 1;
+    static final byte DEAL = 2;
+    static final byte ACTION = 3;
+    static final byte SETTLE = 4;
+    static final byte ROLLBACK = 5;
+    static final byte APPLIED = 6;
+
+    private static final int SLOT_SIZE = 64;
+    private static final int PAYLOAD = 24;
+    private static final int PAYLOAD_OFFSET = 36;
+    private static final int CRC_OFFSET = SLOT_SIZE - Integer.BYTES;
+    private static final long LOCK_POSITION = 1L << 40;
+
+    /** Journal files open in this process; see {@link #tryLock}. */
+    private static final Set<String> HELD = new HashSet<>();
+
+    private RandomAccessFile file;
+    private String path;
+    private MappedByteBuffer ring;
+    private int slots;
+    private Durability durability;
+    private CRC32 crc;
+    private long sequence;
+    private long round;
+    private Map<Long, String> unappliedNames;
+    private Map<Long, Integer> unappliedNets;
+    private int rolledBack;
+
+    public RoundJournal(File file, Durability durability) throws IOException {
+        this(file, DEFAULT_SLOTS, durability);
+    }
+
+    /** Opens the journal, failing if another process or journal already holds the file. */
+    public RoundJournal(File file, int slots, Durability durability) throws IOException {
+        this(openLocked(file), file.getCanonicalPath(), slots, durability);
+    }
+
+    private RoundJournal(RandomAccessFile file, String path, int slots, Durability durability) throws IOException {
+        this.file = file;
+        this.path = path;
+        if (slots < 2) {
+            close();
+            throw new IllegalArgumentException("A journal needs at least two slots");
+        }
+        if (this.file.length() != 0 && this.file.length() % SLOT_SIZE == 0) {
+            slots = (int) (this.file.length() / SLOT_SIZE);
+        }
+        this.slots = slots;
+        this.ring = this.file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, (long) slots * SLOT_SIZE);
+        this.ring.order(ByteOrder.LITTLE_ENDIAN);
+        this.durability = durability;
+        this.crc = new CRC32();
+        this.unappliedNames = new HashMap<>();
+        this.unappliedNets = new HashMap<>();
+        recover();
+    }
+
+    /** Opens the first {@code journal-<n>.dat} in {@code directory} that is not held by a running table. */
+    public static RoundJournal claim(File directory, Durability durability) throws IOException {
+        directory.mkdirs();
+        for (int n = 0;; n++) {
+            File journal = new File(directory, "journal-" + n + ".dat");
+            RandomAccessFile file = tryLock(journal);
+            if (file != null) {
+                return new RoundJournal(file, journal.getCanonicalPath(), DEFAULT_SLOTS, durability);
+            }
+        }
+    }
+
+    private static RandomAccessFile openLocked(File file) throws IOException {
+        RandomAccessFile locked = tryLock(file);
+        if (locked == null) {
+            throw new IOException("Journal " + file + " is in use by another table");
+        }
+        return locked;
+    }
+
+    /**
+     * Opens the file and locks a byte past the end of any ring, so the lock
+     * never overlaps the mapping. Returns null if the file is already held,
+     * by another process or by another journal in this one. Files held in
+     * this process are checked before opening, because closing any channel
+     * on a file can release the process's lock on it.
+     */
+    private static RandomAccessFile tryLock(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        String path = file.getCanonicalPath();
+        synchronized (HELD) {
+            if (!HELD.add(path)) {
+                return null;
+            }
+        }
+        RandomAccessFile opened = null;
+        FileLock lock = null;
+        try {
+            opened = new RandomAccessFile(file, "rw");
+            lock = opened.getChannel().tryLock(LOCK_POSITION, 1, false);
+            return lock == null ? null : opened;
+        } finally {
+            if (lock == null) {
+                synchronized (HELD) {
+                    HELD.remove(path);
+                }
+                if (opened != null) {
+                    opened.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Replays the ring in sequence order, collecting settlements that were
+     * never applied, then rolls back every bet that was never settled.
+     */
+    private void recover() {
+        List<long[]> records = new ArrayList<>();
+        for (int slot = 0; slot < slots; slot++) {
+            if (valid(slot)) {
+                records.add(new long[] { ring.getLong(slot * SLOT_SIZE), slot });
+            }
+        }
+        records.sort((a, b) -> Long.compare(a[0], b[0]));
+
+        Map<Long, Integer> openBets = new HashMap<>();
+        for (long[] record : records) {
+            int base = (int) record[1] * SLOT_SIZE;
+            sequence = record[0] + 1;
+            long recordRound = ring.getLong(base + 16);
+            round = Math.max(round, recordRound + 1);
+            byte type = ring.get(base + 24);
+            long key = recordRound * Game.MAX_SEATS + ring.get(base + 25);
+            int earnings = ring.getInt(base + 28);
+            if (type == BET) {
+                openBets.put(key, earnings);
+            } else if (type == SETTLE) {
+                openBets.remove(key);
+                unappliedNames.put(key, readName(base));
+                unappliedNets.put(key, ring.getInt(base + 32));
+            } else if (type == ROLLBACK) {
+                openBets.remove(key);
+            } else if (type == APPLIED) {
+                unappliedNames.remove(key);
+                unappliedNets.remove(key);
+            }
+        }
+
+        for (Map.Entry<Long, Integer> open : openBets.entrySet()) {
+            long key = open.getKey();
+            write(key / Game.MAX_SEATS, (int) (key % Game.MAX_SEATS), ROLLBACK, open.getValue(), 0, null, 0);
+            rolledBack++;
+        }
+        if (rolledBack > 0) {
+            ring.force();
+        }
+    }
+
+    private boolean valid(int slot) {
+        int base = slot * SLOT_SIZE;
+        if (ring.get(base + 24) == 0) {
+            return false;
+        }
+        crc.reset();
+        for (int i = 0; i < CRC_OFFSET; i++) {
+            crc.update(ring.get(base + i));
+        }
+        return (int) crc.getValue() == ring.getInt(base + CRC_OFFSET);
+    }
+
+    private String readName(int base) {
+        byte[] name = new byte[ring.get(base + 26)];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = ring.get(base + PAYLOAD_OFFSET + i);
+        }
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    private void write(long recordRound, int seat, byte type, int earnings, int amount, byte[] payload, int length) {
+        int base = (int) (sequence % slots) * SLOT_SIZE;
+        ring.putLong(base, sequence++);
+        ring.putLong(base + 8, System.currentTimeMillis());
+        ring.putLong(base + 16, recordRound);
+        ring.put(base + 24, type);
+        ring.put(base + 25, (byte) seat);
+        ring.put(base + 26, (byte) length);
+        ring.put(base + 27, (byte) 0);
+        ring.putInt(base + 28, earnings);
+        ring.putInt(base + 32, amount);
+        for (int i = 0; i < PAYLOAD; i++) {
+            ring.put(base + PAYLOAD_OFFSET + i, i < length ? payload[i] : 0);
+        }
+        crc.reset();
+        for (int i = 0; i < CRC_OFFSET; i++) {
+            crc.update(ring.get(base + i));
+        }
+        ring.putInt(base + CRC_OFFSET, (int) crc.getValue());
+        if (durability == Durability.ACTION) {
+            ring.force();
+        }
+    }
+
+    /** Allocates the id that ties together the records of one round. */
+    public synchronized long beginRound() {
+        return round++;
+    }
+
+    /** The bet has been taken from {@code earningsBefore}; names longer than 24 bytes are truncated. */
+    public synchronized void betReserved(long round, int seat, String playerName, int earningsBefore, int bet) {
+        byte[] name = playerName.getBytes(StandardCharsets.UTF_8);
+        write(round, seat, BET, earningsBefore, bet, name, Math.min(name.length, PAYLOAD));
+    }
+
+    /** The seat's first two cards followed by the dealer's upcard, as card codes. */
+    public synchronized void cardsDealt(long round, int seat, int earnings, byte[] codes) {
+        write(round, seat, DEAL, earnings, 0, codes, Math.min(codes.length, PAYLOAD));
+    }
+
+    public synchronized void action(long round, int seat, int earnings, Action action) {
+        write(round, seat, ACTION, earnings, action.ordinal(), null, 0);
+    }
+
+    /** The seat settled with {@code net} the round's change to the player's balance. */
+    public synchronized void settled(long round, int seat, String playerName, int earnings, int net) {
+        byte[] name = playerName.getBytes(StandardCharsets.UTF_8);
+        write(round, seat, SETTLE, earnings, net, name, Math.min(name.length, PAYLOAD));
+    }
+
+    /** The settlement's delta has been added to the durable balance store. */
+    public synchronized void applied(long round, int seat, int earnings) {
+        write(round, seat, APPLIED, earnings, 0, null, 0);
+    }
+
+    /** Marks the end of a round's records, forcing them to disk at {@link Durability#ROUND}. */
+    public void roundComplete() {
+        if (durability == Durability.ROUND) {
+            ring.force();
+        }
+    }
+
+    /** The sum of the player's settlements found on open that never reached the balance store. */
+    public synchronized int unappliedDelta(String playerName) {
+        String name = journaledName(playerName);
+        int delta = 0;
+        for (Map.Entry<Long, String> settled : unappliedNames.entrySet()) {
+            if (settled.getValue().equals(name)) {
+                delta += unappliedNets.get(settled.getKey());
+            }
+        }
+        return delta;
+    }
+
+    /** Records that the player's {@link #unappliedDelta} has been added to the balance store. */
+    public synchronized void markApplied(String playerName) {
+        String name = journaledName(playerName);
+        boolean wrote = false;
+        Iterator<Map.Entry<Long, String>> settlements = unappliedNames.entrySet().iterator();
+        while (settlements.hasNext()) {
+            Map.Entry<Long, String> settled = settlements.next();
+            if (settled.getValue().equals(name)) {
+                long key = settled.getKey();
+                write(key / Game.MAX_SEATS, (int) (key % Game.MAX_SEATS), APPLIED, 0, 0, null, 0);
+                unappliedNets.remove(key);
+                settlements.remove();
+                wrote = true;
+            }
+        }
+        if (wrote && durability != Durability.NONE) {
+            ring.force();
+        }
+    }
+
+    /** The name as the journal stores it, truncated to the payload. */
+    private static String journaledName(String playerName) {
+        byte[] name = playerName.getBytes(StandardCharsets.UTF_8);
+        return name.length > PAYLOAD ? new String(name, 0, PAYLOAD, StandardCharsets.UTF_8) : playerName;
+    }
+
+    /** Number of unsettled rounds refunded when the journal was opened. */
+    public int getRolledBack() {
+        return rolledBack;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (ring != null && durability != Durability.NONE) {
+            ring.force();
+        }
+        file.close();
+        synchronized (HELD) {
+            HELD.remove(path);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.blackjack;
+
+/**
+ * Notified by {@link Game} after each round is settled and logged. Called on
+ * the game's thread, so implementations shared between tables must be thread
+ * safe.
+ */
+public interface RoundListener {
+
+    void roundSettled(RoundResult result);
+}
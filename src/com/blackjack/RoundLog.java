@@ -0,0 +1,312 @@
+package com.blackjack;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Segmented replacement for the single append-only game_data.txt. Lines keep
+ * the game_data.txt format, with timestamps in UTC so that their text order is
+ * their time order across DST changes. The active segment rolls over by size
+ * or age, and closed segments are gzipped in the background. A sparse index
+ * records (timestamp, segment, offset) at the start of every segment and every
+ * {@value #INDEX_INTERVAL} lines, so a time-range query starts reading at the
+ * right place and opens only the segments it needs.
+ */
+public class RoundLog implements AutoCloseable {
+
+    public static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    public static final long DEFAULT_SEGMENT_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static final int INDEX_INTERVAL = 1024;
+    private static final int TIMESTAMP_LENGTH = 19;
+    private static final long MAX_TIMESTAMP = 253402214400000L;
+    private static final String INDEX_FILE = "index.dat";
+
+    private File directory;
+    private long maxSegmentBytes;
+    private long maxSegmentMillis;
+    private List<long[]> index;
+    private DataOutputStream indexOut;
+    private ExecutorService compressor;
+
+    private int segment;
+    private OutputStream out;
+    private long segmentBytes;
+    private long segmentStarted;
+    private int linesSinceIndex;
+
+    private SimpleDateFormat dateFormat;
+    private long formattedSecond;
+    private String formattedTimestamp;
+
+    public RoundLog(File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES, DEFAULT_SEGMENT_MILLIS);
+    }
+
+    public RoundLog(File directory, long maxSegmentBytes, long maxSegmentMillis) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create round log directory " + directory);
+        }
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.maxSegmentMillis = maxSegmentMillis;
+        this.index = new ArrayList<>();
+        this.dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        this.dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        this.formattedSecond = Long.MIN_VALUE;
+        this.compressor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "round-log-compressor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        loadIndex();
+        recoverSegments();
+        this.indexOut = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(new File(directory, INDEX_FILE), true)));
+        openSegment(segment == 0 ? 1 : segment);
+        if (segmentBytes > 0) {
+            segmentStarted = recoverSegmentStart(segment);
+        }
+    }
+
+    public synchronized void append(long timestamp, String playerName, String result) throws IOException {
+        if (segmentBytes >= maxSegmentBytes
+                || (segmentBytes > 0 && timestamp - segmentStarted >= maxSegmentMillis)) {
+            rollOver();
+        }
+        if (segmentBytes == 0) {
+            segmentStarted = timestamp;
+            addIndexEntry(timestamp);
+        } else if (linesSinceIndex >= INDEX_INTERVAL) {
+            addIndexEntry(timestamp);
+        }
+
+        byte[] line = (format(timestamp) + " - Player: " + playerName + ", Result: " + result + "\n")
+                .getBytes(StandardCharsets.UTF_8);
+        out.write(line);
+        out.flush();
+        segmentBytes += line.length;
+        linesSinceIndex++;
+    }
+
+    /** Sends every line with a timestamp in {@code [from, to]} to {@code sink}, in log order. */
+    public void query(long from, long to, Consumer<String> sink) throws IOException {
+        String fromKey;
+        String toKey;
+        long[] start = null;
+        int lastSegment;
+        from = Math.max(0, from);
+        to = Math.min(MAX_TIMESTAMP, to);
+        synchronized (this) {
+            fromKey = format(from);
+            toKey = format(to);
+            long fromSecond = from - Math.floorMod(from, 1000L);
+            for (long[] entry : index) {
+                if (entry[0] >= fromSecond) {
+                    break;
+                }
+                start = entry;
+            }
+            if (start == null && !index.isEmpty()) {
+                start = index.get(0);
+            }
+            lastSegment = segment;
+        }
+        if (start == null) {
+            return;
+        }
+
+        for (int s = (int) start[1]; s <= lastSegment; s++) {
+            try (BufferedReader reader = openForRead(s, s == start[1] ? start[2] : 0)) {
+                if (reader == null) {
+                    continue;
+                }
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.length() < TIMESTAMP_LENGTH) {
+                        continue;
+                    }
+                    String key = line.substring(0, TIMESTAMP_LENGTH);
+                    if (key.compareTo(toKey) > 0) {
+                        return;
+                    }
+                    if (key.compareTo(fromKey) >= 0) {
+                        sink.accept(line);
+                    }
+                }
+            }
+        }
+    }
+
+    public List<String> query(long from, long to) throws IOException {
+        List<String> lines = new ArrayList<>();
+        query(from, to, lines::add);
+        return lines;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+        indexOut.close();
+        compressor.shutdown();
+        try {
+            compressor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String format(long timestamp) {
+        long second = timestamp - Math.floorMod(timestamp, 1000L);
+        if (second != formattedSecond) {
+            formattedTimestamp = dateFormat.format(new Date(second));
+            formattedSecond = second;
+        }
+        return formattedTimestamp;
+    }
+
+    private void rollOver() throws IOException {
+        out.close();
+        final int closed = segment;
+        compressor.execute(() -> compress(closed));
+        openSegment(segment + 1);
+    }
+
+    private void openSegment(int number) throws IOException {
+        segment = number;
+        File file = segmentFile(number, false);
+        segmentBytes = file.length();
+        linesSinceIndex = 0;
+        out = new BufferedOutputStream(new FileOutputStream(file, true), 8192);
+    }
+
+    private void addIndexEntry(long timestamp) throws IOException {
+        long[] entry = {timestamp, segment, segmentBytes};
+        index.add(entry);
+        indexOut.writeLong(entry[0]);
+        indexOut.writeInt(segment);
+        indexOut.writeLong(entry[2]);
+        indexOut.flush();
+        linesSinceIndex = 0;
+    }
+
+    private void loadIndex() throws IOException {
+        File file = new File(directory, INDEX_FILE);
+        if (!file.exists()) {
+            return;
+        }
+        long good = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                long timestamp = in.readLong();
+                int number = in.readInt();
+                long offset = in.readLong();
+                index.add(new long[] {timestamp, number, offset});
+                segment = Math.max(segment, number);
+                good += 20;
+            }
+        } catch (EOFException e) {
+            // a torn final entry from a crash is dropped
+        }
+        if (good < file.length()) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(good);
+            }
+        }
+    }
+
+    /**
+     * The first index entry of a segment is written with its first line. If a crash
+     * tore that entry off the index, the file's modification time stands in.
+     */
+    private long recoverSegmentStart(int number) {
+        long started = -1;
+        for (int i = index.size() - 1; i >= 0 && index.get(i)[1] >= number; i--) {
+            if (index.get(i)[1] == number) {
+                started = index.get(i)[0];
+            }
+        }
+        return started >= 0 ? started : segmentFile(number, false).lastModified();
+    }
+
+    private void recoverSegments() {
+        for (int s = 1; s < segment; s++) {
+            if (segmentFile(s, false).exists()) {
+                final int pending = s;
+                compressor.execute(() -> compress(pending));
+            }
+        }
+    }
+
+    private void compress(int number) {
+        File plain = segmentFile(number, false);
+        File compressed = segmentFile(number, true);
+        File temp = new File(compressed.getPath() + ".tmp");
+        try (InputStream in = new FileInputStream(plain);
+                OutputStream gz = new GZIPOutputStream(new FileOutputStream(temp), 1 << 16)) {
+            byte[] buffer = new byte[1 << 16];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                gz.write(buffer, 0, n);
+            }
+        } catch (IOException e) {
+            System.out.println("Failed to compress round log segment " + number + ".");
+            temp.delete();
+            return;
+        }
+        if (temp.renameTo(compressed)) {
+            plain.delete();
+        }
+    }
+
+    private BufferedReader openForRead(int number, long offset) throws IOException {
+        InputStream in;
+        File plain = segmentFile(number, false);
+        File compressed = segmentFile(number, true);
+        if (compressed.exists()) {
+            in = new GZIPInputStream(new FileInputStream(compressed), 1 << 16);
+        } else if (plain.exists()) {
+            in = new FileInputStream(plain);
+        } else {
+            return null;
+        }
+        long skipped = 0;
+        while (skipped < offset) {
+            long n = in.skip(offset - skipped);
+            if (n <= 0) {
+                break;
+            }
+            skipped += n;
+        }
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    private File segmentFile(int number, boolean compressed) {
+        return new File(directory, String.format("segment-%06d.log%s", number, compressed ? ".gz" : ""));
+    }
+}
@@ -0,0 +1,158 @@
+package com.blackjack;
+
+import java.util.List;
+
+/** The settled result of one round for one player, one outcome per hand. */
+public class RoundResult {
+    private String playerName;
+    private long timestamp;
+    private int wagered;
+    private int net;
+    private int earnings;
+    private Outcome[] outcomes;
+    private int[] handBets;
+    private int[] handNets;
+    private int[] handTotals;
+    private byte[][] handCards;
+    private byte[] dealerCards;
+    private int dealerTotal;
+    private byte[] actions;
+    private boolean insured;
+    private int sideWagered;
+    private int sideNet;
+
+    public RoundResult(String playerName, long timestamp, int wagered, int net, int earnings, Outcome[] outcomes) {
+        this.playerName = playerName;
+        this.timestamp = timestamp;
+        this.wagered = wagered;
+        this.net = net;
+        this.earnings = earnings;
+        this.outcomes = outcomes;
+        this.handBets = new int[0];
+        this.handNets = new int[0];
+        this.handTotals = new int[0];
+        this.handCards = new byte[0][];
+        this.dealerCards = new byte[0];
+        this.actions = new byte[0];
+    }
+
+    /** Per-hand detail, indexed like {@link #getOutcomes()}; cards are {@link Card#getCode()} values. */
+    public void setHandDetail(int[] handBets, int[] handNets, int[] handTotals, byte[][] handCards,
+            byte[] dealerCards, int dealerTotal) {
+        this.handBets = handBets;
+        this.handNets = handNets;
+        this.handTotals = handTotals;
+        this.handCards = handCards;
+        this.dealerCards = dealerCards;
+        this.dealerTotal = dealerTotal;
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /** Everything staked in the round: hand bets, insurance and side bets. */
+    public int getWagered() {
+        return wagered;
+    }
+
+    /** Change in the player's earnings over the round, side bets included. */
+    public int getNet() {
+        return net;
+    }
+
+    /** The player's earnings after settlement. */
+    public int getEarnings() {
+        return earnings;
+    }
+
+    public Outcome[] getOutcomes() {
+        return outcomes;
+    }
+
+    /** The player's decisions in the order they were made, as {@link Action} ordinals. */
+    public void setActions(byte[] actions, boolean insured) {
+        this.actions = actions;
+        this.insured = insured;
+    }
+
+    public byte[] getActions() {
+        return actions;
+    }
+
+    public boolean isInsured() {
+        return insured;
+    }
+
+    /** The side-bet part of {@link #getWagered()} and {@link #getNet()}, which the hand detail leaves out. */
+    public void setSideBets(int sideWagered, int sideNet) {
+        this.sideWagered = sideWagered;
+        this.sideNet = sideNet;
+    }
+
+    public int getSideWagered() {
+        return sideWagered;
+    }
+
+    public int getSideNet() {
+        return sideNet;
+    }
+
+    public int[] getHandBets() {
+        return handBets;
+    }
+
+    public int[] getHandNets() {
+        return handNets;
+    }
+
+    public int[] getHandTotals() {
+        return handTotals;
+    }
+
+    public byte[][] getHandCards() {
+        return handCards;
+    }
+
+    public byte[] getDealerCards() {
+        return dealerCards;
+    }
+
+    public int getDealerTotal() {
+        return dealerTotal;
+    }
+
+    public static byte[] codes(List<Card> cards) {
+        byte[] codes = new byte[cards.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = cards.get(i).getCode();
+        }
+        return codes;
+    }
+
+    public int count(Outcome outcome) {
+        int count = 0;
+        for (Outcome o : outcomes) {
+            if (o == outcome) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int wins() {
+        return count(Outcome.WIN) + count(Outcome.BLACKJACK);
+    }
+
+    public int losses() {
+        return count(Outcome.LOSS) + count(Outcome.SURRENDER);
+    }
+
+    public int pushes() {
+        return count(Outcome.PUSH);
+    }
+}
@@ -0,0 +1,405 @@
+package com.blackjack;
+
+import java.util.Arrays;
+
+/**
+ * A table ruleset, including the table limits and payouts. The options are
+ * compiled into lookup tables when the ruleset is built, so the checks made
+ * during play are array reads. A ruleset never changes once built, so a
+ * round that reads it once sees one consistent set of rules; see
+ * {@link RulesConfig} for replacing the rules of running tables.
+ */
+public class Rules {
+
+    /** The lowest total a dealer may stand on, and the default. */
+    public static final int DEALER_MINIMUM = 17;
+
+    /** The most hands a seat can split into; the hand history stores the count in three bits. */
+    public static final int MAX_HANDS = 8;
+
+    public enum DoubleOn { ANY_TWO, NINE_TO_ELEVEN, TEN_OR_ELEVEN }
+
+    private static final int FIRST_TWO = 1;
+    private static final int PAIR = 2;
+    private static final int SPLIT_HAND = 4;
+    private static final int SPLIT_ACES = 8;
+    private static final int CAN_SPLIT = 16;
+    private static final int FLAG_COMBINATIONS = 32;
+    private static final int VALUES = 32;
+
+    private boolean hitSoft17;
+    private boolean doubleAfterSplit;
+    private boolean resplitAces;
+    private boolean surrender;
+    private boolean insurance;
+    private boolean sideBets;
+    private int maxHands;
+    private int blackjackNumerator;
+    private int blackjackDenominator;
+    private DoubleOn doubleOn;
+    private int dealerStandsOn;
+    private int minBet;
+    private int maxBet;
+    private int initialBalance;
+    private int insurancePays;
+    private int[] perfectPairsPays;
+    private int[] twentyOnePlusThreePays;
+
+    private boolean[] dealerHits;
+    private byte[] allowedActions;
+
+    private Rules(Builder builder) {
+        this.hitSoft17 = builder.hitSoft17;
+        this.doubleAfterSplit = builder.doubleAfterSplit;
+        this.resplitAces = builder.resplitAces;
+        this.surrender = builder.surrender;
+        this.insurance = builder.insurance;
+        this.sideBets = builder.sideBets;
+        this.maxHands = builder.maxHands;
+        this.blackjackNumerator = builder.blackjackNumerator;
+        this.blackjackDenominator = builder.blackjackDenominator;
+        this.doubleOn = builder.doubleOn;
+        this.dealerStandsOn = builder.dealerStandsOn;
+        this.minBet = builder.minBet;
+        this.maxBet = builder.maxBet;
+        this.initialBalance = builder.initialBalance;
+        this.insurancePays = builder.insurancePays;
+        this.perfectPairsPays = builder.perfectPairsPays.clone();
+        this.twentyOnePlusThreePays = builder.twentyOnePlusThreePays.clone();
+        compile();
+    }
+
+    public static Rules standard() {
+        return new Builder().build();
+    }
+
+    private void compile() {
+        dealerHits = new boolean[2 * VALUES];
+        for (int value = 0; value < VALUES; value++) {
+            dealerHits[value] = value < dealerStandsOn;
+            dealerHits[VALUES + value] = value < dealerStandsOn || (hitSoft17 && value == dealerStandsOn);
+        }
+
+        allowedActions = new byte[FLAG_COMBINATIONS * VALUES];
+        for (int flags = 0; flags < FLAG_COMBINATIONS; flags++) {
+            for (int value = 0; value < VALUES; value++) {
+                allowedActions[flags * VALUES + value] = (byte) compileActions(flags, value);
+            }
+        }
+    }
+
+    private int compileActions(int flags, int value) {
+        boolean firstTwo = (flags & FIRST_TWO) != 0;
+        boolean pair = (flags & PAIR) != 0;
+        boolean splitHand = (flags & SPLIT_HAND) != 0;
+        boolean canSplit = (flags & CAN_SPLIT) != 0;
+
+        if ((flags & SPLIT_ACES) != 0) {
+            int mask = Action.STAY.mask();
+            if (firstTwo && pair && resplitAces && canSplit) {
+                mask |= Action.SPLIT.mask();
+            }
+            return mask;
+        }
+        if (value >= 21) {
+            return Action.STAY.mask();
+        }
+
+        int mask = Action.HIT.mask() | Action.STAY.mask();
+        if (firstTwo) {
+            if (doubleAllowedOn(value) && (!splitHand || doubleAfterSplit)) {
+                mask |= Action.DOUBLE.mask();
+            }
+            if (pair && canSplit) {
+                mask |= Action.SPLIT.mask();
+            }
+            if (surrender && !splitHand) {
+                mask |= Action.SURRENDER.mask();
+            }
+        }
+        return mask;
+    }
+
+    private boolean doubleAllowedOn(int value) {
+        switch (doubleOn) {
+            case NINE_TO_ELEVEN:
+                return value >= 9 && value <= 11;
+            case TEN_OR_ELEVEN:
+                return value == 10 || value == 11;
+            default:
+                return true;
+        }
+    }
+
+    public int allowedActions(Hand hand, int handCount) {
+        return allowedActions(hand.getValue(), hand.size() == 2, hand.isPair(), hand.isSplit(), hand.isSplitAces(),
+                handCount < maxHands);
+    }
+
+    public int allowedActions(int value, boolean firstTwo, boolean pair, boolean splitHand, boolean splitAces,
+            boolean canSplit) {
+        int flags = 0;
+        if (firstTwo) {
+            flags |= FIRST_TWO;
+            if (pair) {
+                flags |= PAIR;
+            }
+        }
+        if (splitHand) {
+            flags |= SPLIT_HAND;
+        }
+        if (splitAces) {
+            flags |= SPLIT_ACES;
+        }
+        if (canSplit) {
+            flags |= CAN_SPLIT;
+        }
+        return allowedActions[flags * VALUES + Math.min(value, VALUES - 1)];
+    }
+
+    public boolean dealerHits(Hand hand) {
+        return dealerHits[(hand.isSoft() ? VALUES : 0) + Math.min(hand.getValue(), VALUES - 1)];
+    }
+
+    public boolean dealerHits(int value, boolean soft) {
+        return dealerHits[(soft ? VALUES : 0) + Math.min(value, VALUES - 1)];
+    }
+
+    public int blackjackWinnings(int bet) {
+        return bet * blackjackNumerator / blackjackDenominator;
+    }
+
+    public boolean offersInsurance() {
+        return insurance;
+    }
+
+    /** Insurance winnings per unit staked. */
+    public int getInsurancePays() {
+        return insurancePays;
+    }
+
+    /** Perfect Pairs winnings to one for a {@link SideBets#perfectPairs} category. */
+    public int perfectPairsPays(int category) {
+        return perfectPairsPays[category];
+    }
+
+    /** 21+3 winnings to one for a {@link SideBets#twentyOnePlusThree} category. */
+    public int twentyOnePlusThreePays(int category) {
+        return twentyOnePlusThreePays[category];
+    }
+
+    public int getDealerStandsOn() {
+        return dealerStandsOn;
+    }
+
+    public int getMinBet() {
+        return minBet;
+    }
+
+    public int getMaxBet() {
+        return maxBet;
+    }
+
+    /** The balance a new player is seated with. */
+    public int getInitialBalance() {
+        return initialBalance;
+    }
+
+    /** Whether Perfect Pairs and 21+3 side bets are taken, see {@link SideBets}. */
+    public boolean offersSideBets() {
+        return sideBets;
+    }
+
+    public boolean isHitSoft17() {
+        return hitSoft17;
+    }
+
+    public boolean isDoubleAfterSplit() {
+        return doubleAfterSplit;
+    }
+
+    public boolean isResplitAces() {
+        return resplitAces;
+    }
+
+    public boolean isSurrender() {
+        return surrender;
+    }
+
+    public int getMaxHands() {
+        return maxHands;
+    }
+
+    public int getBlackjackNumerator() {
+        return blackjackNumerator;
+    }
+
+    public int getBlackjackDenominator() {
+        return blackjackDenominator;
+    }
+
+    public DoubleOn getDoubleOn() {
+        return doubleOn;
+    }
+
+    @Override
+    public String toString() {
+        return (hitSoft17 ? "H17" : "S17")
+                + (doubleAfterSplit ? " DAS" : " NDAS")
+                + (resplitAces ? " RSA" : "")
+                + (surrender ? " LS" : "")
+                + (insurance ? " INS" : "")
+                + " double " + doubleOn
+                + " split to " + maxHands
+                + " BJ " + blackjackNumerator + ":" + blackjackDenominator
+                + (dealerStandsOn != DEALER_MINIMUM ? " dealer stands on " + dealerStandsOn : "");
+    }
+
+    /**
+     * The bet limits, starting balance, payouts and side bets, which
+     * {@link #toString()} leaves out because they do not change how a hand
+     * should be played.
+     */
+    public String describeLimits() {
+        return "bets $" + minBet + "-$" + maxBet
+                + ", starting balance $" + initialBalance
+                + ", insurance " + insurancePays + ":1"
+                + (sideBets ? ", Perfect Pairs " + Arrays.toString(perfectPairsPays)
+                        + ", 21+3 " + Arrays.toString(twentyOnePlusThreePays) : ", no side bets");
+    }
+
+    public static class Builder {
+        private boolean hitSoft17 = false;
+        private boolean doubleAfterSplit = true;
+        private boolean resplitAces = false;
+        private boolean surrender = true;
+        private boolean insurance = true;
+        private boolean sideBets;
+        private int maxHands = 4;
+        private int blackjackNumerator = 3;
+        private int blackjackDenominator = 2;
+        private DoubleOn doubleOn = DoubleOn.ANY_TWO;
+        private int dealerStandsOn = DEALER_MINIMUM;
+        private int minBet = 10;
+        private int maxBet = 500;
+        private int initialBalance = 100;
+        private int insurancePays = 2;
+        private int[] perfectPairsPays = { 0, 6, 12, 25 };
+        private int[] twentyOnePlusThreePays = { 0, 5, 10, 30, 40, 100 };
+
+        public Builder hitSoft17(boolean hitSoft17) {
+            this.hitSoft17 = hitSoft17;
+            return this;
+        }
+
+        public Builder doubleAfterSplit(boolean doubleAfterSplit) {
+            this.doubleAfterSplit = doubleAfterSplit;
+            return this;
+        }
+
+        public Builder resplitAces(boolean resplitAces) {
+            this.resplitAces = resplitAces;
+            return this;
+        }
+
+        public Builder surrender(boolean surrender) {
+            this.surrender = surrender;
+            return this;
+        }
+
+        public Builder insurance(boolean insurance) {
+            this.insurance = insurance;
+            return this;
+        }
+
+        /** Offers Perfect Pairs and 21+3; off unless a table asks for them. */
+        public Builder sideBets(boolean sideBets) {
+            this.sideBets = sideBets;
+            return this;
+        }
+
+        public Builder maxHands(int maxHands) {
+            if (maxHands < 1 || maxHands > MAX_HANDS) {
+                throw new IllegalArgumentException("maxHands must be between 1 and " + MAX_HANDS);
+            }
+            this.maxHands = maxHands;
+            return this;
+        }
+
+        public Builder blackjackPays(int numerator, int denominator) {
+            if (numerator <= 0 || denominator <= 0) {
+                throw new IllegalArgumentException("Blackjack payout must be positive");
+            }
+            this.blackjackNumerator = numerator;
+            this.blackjackDenominator = denominator;
+            return this;
+        }
+
+        public Builder doubleOn(DoubleOn doubleOn) {
+            this.doubleOn = doubleOn;
+            return this;
+        }
+
+        /** The dealer stands on this total or more, from {@link #DEALER_MINIMUM} to 21. */
+        public Builder dealerStandsOn(int dealerStandsOn) {
+            if (dealerStandsOn < DEALER_MINIMUM || dealerStandsOn > 21) {
+                throw new IllegalArgumentException("The dealer must stand on " + DEALER_MINIMUM + " to 21");
+            }
+            this.dealerStandsOn = dealerStandsOn;
+            return this;
+        }
+
+        public Builder betLimits(int minBet, int maxBet) {
+            if (minBet < 1 || maxBet < minBet) {
+                throw new IllegalArgumentException("Bet limits must satisfy 1 <= min <= max");
+            }
+            this.minBet = minBet;
+            this.maxBet = maxBet;
+            return this;
+        }
+
+        public Builder initialBalance(int initialBalance) {
+            if (initialBalance < 0) {
+                throw new IllegalArgumentException("The initial balance must not be negative");
+            }
+            this.initialBalance = initialBalance;
+            return this;
+        }
+
+        public Builder insurancePays(int insurancePays) {
+            if (insurancePays <= 0) {
+                throw new IllegalArgumentException("Insurance payout must be positive");
+            }
+            this.insurancePays = insurancePays;
+            return this;
+        }
+
+        /** Perfect Pairs winnings to one for a mixed, coloured and perfect pair. */
+        public Builder perfectPairsPays(int mixed, int coloured, int perfect) {
+            this.perfectPairsPays = sideBetPays(mixed, coloured, perfect);
+            return this;
+        }
+
+        /** 21+3 winnings to one for a flush, straight, three of a kind, straight flush and suited trips. */
+        public Builder twentyOnePlusThreePays(int flush, int straight, int trips, int straightFlush,
+                int suitedTrips) {
+            this.twentyOnePlusThreePays = sideBetPays(flush, straight, trips, straightFlush, suitedTrips);
+            return this;
+        }
+
+        private static int[] sideBetPays(int... pays) {
+            int[] table = new int[pays.length + 1];
+            for (int i = 0; i < pays.length; i++) {
+                if (pays[i] <= 0) {
+                    throw new IllegalArgumentException("Side bet payouts must be positive");
+                }
+                table[i + 1] = pays[i];
+            }
+            return table;
+        }
+
+        public Rules build() {
+            return new Rules(this);
+        }
+    }
+}
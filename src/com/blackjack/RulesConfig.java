@@ -0,0 +1,258 @@
+package com.blackjack;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Table rules loaded from a properties file and reloaded when the file
+ * changes, so limits and payouts can be changed without restarting tables.
+ * A background thread watches the file's directory and builds a new
+ * {@link Rules} snapshot on every change; {@link #current()} hands out the
+ * latest one. Tables read it once per round, so a reload takes effect at the
+ * next round of each table, which announces the new rules. The file is read
+ * once it has been quiet for {@value #SETTLE_MILLIS} ms, so an editor's
+ * truncate-then-write is not read half way; an empty file or one that fails
+ * to parse is reported and the previous rules stay in force. Writing a
+ * temporary file and renaming it over the config is safest.
+ *
+ * <p>Keys left out of the file take the {@link Rules.Builder} defaults. If
+ * the file does not exist it is created with the standard rules.
+ *
+ * <pre>
+ * minBet=10
+ * maxBet=500
+ * initialBalance=100
+ * blackjackPays=3:2
+ * dealerStandsOn=17
+ * hitSoft17=false
+ * insurancePays=2
+ * perfectPairsPays=6,12,25
+ * twentyOnePlusThreePays=5,10,30,40,100
+ * </pre>
+ */
+public class RulesConfig implements AutoCloseable {
+
+    static final long SETTLE_MILLIS = 200;
+
+    private static final String[] KEYS = { "hitSoft17", "doubleAfterSplit", "resplitAces", "surrender",
+            "insurance", "sideBets", "maxHands", "blackjackPays", "doubleOn", "dealerStandsOn", "minBet", "maxBet",
+            "initialBalance", "insurancePays", "perfectPairsPays", "twentyOnePlusThreePays" };
+
+    private Path file;
+    private AtomicReference<Rules> current;
+    private WatchService watcher;
+    private Thread thread;
+
+    public RulesConfig(File file) throws IOException {
+        this.file = file.getAbsoluteFile().toPath();
+        if (!Files.exists(this.file)) {
+            store(Rules.standard(), file);
+        }
+        this.current = new AtomicReference<>(read(this.file));
+        this.watcher = this.file.getFileSystem().newWatchService();
+        this.file.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::watch, "rules-config-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /** The rules in force now. The snapshot never changes; a reload replaces it. */
+    public Rules current() {
+        return current.get();
+    }
+
+    /** Rereads the file, keeping the current rules if it cannot be parsed. Returns whether the rules changed. */
+    public boolean reload() {
+        try {
+            Rules rules = read(file);
+            Rules previous = current.get();
+            if (rules.toString().equals(previous.toString())
+                    && rules.describeLimits().equals(previous.describeLimits())) {
+                return false;
+            }
+            current.set(rules);
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Keeping the current table rules, cannot load " + file + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                boolean changed = false;
+                WatchKey key = watcher.take();
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        changed |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                                || file.getFileName().equals(event.context());
+                    }
+                    key.reset();
+                    key = changed ? watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS) : null;
+                }
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watcher.close();
+        thread.interrupt();
+    }
+
+    static Rules read(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        }
+        return parse(properties);
+    }
+
+    /** Builds rules from properties, rejecting unknown keys so a typo is not silently ignored. */
+    static Rules parse(Properties properties) {
+        if (properties.isEmpty()) {
+            throw new IllegalArgumentException("The rules file is empty");
+        }
+        for (String name : properties.stringPropertyNames()) {
+            boolean known = false;
+            for (String key : KEYS) {
+                known |= key.equals(name);
+            }
+            if (!known) {
+                throw new IllegalArgumentException("Unknown rules key " + name);
+            }
+        }
+
+        Rules.Builder builder = new Rules.Builder();
+        String value;
+        if ((value = properties.getProperty("hitSoft17")) != null) {
+            builder.hitSoft17(parseBoolean("hitSoft17", value));
+        }
+        if ((value = properties.getProperty("doubleAfterSplit")) != null) {
+            builder.doubleAfterSplit(parseBoolean("doubleAfterSplit", value));
+        }
+        if ((value = properties.getProperty("resplitAces")) != null) {
+            builder.resplitAces(parseBoolean("resplitAces", value));
+        }
+        if ((value = properties.getProperty("surrender")) != null) {
+            builder.surrender(parseBoolean("surrender", value));
+        }
+        if ((value = properties.getProperty("insurance")) != null) {
+            builder.insurance(parseBoolean("insurance", value));
+        }
+        if ((value = properties.getProperty("sideBets")) != null) {
+            builder.sideBets(parseBoolean("sideBets", value));
+        }
+        if ((value = properties.getProperty("maxHands")) != null) {
+            builder.maxHands(parseInts("maxHands", value, 1)[0]);
+        }
+        if ((value = properties.getProperty("blackjackPays")) != null) {
+            int[] payout = parseInts("blackjackPays", value.replace(':', ','), 2);
+            builder.blackjackPays(payout[0], payout[1]);
+        }
+        if ((value = properties.getProperty("doubleOn")) != null) {
+            builder.doubleOn(Rules.DoubleOn.valueOf(value.trim().toUpperCase()));
+        }
+        if ((value = properties.getProperty("dealerStandsOn")) != null) {
+            builder.dealerStandsOn(parseInts("dealerStandsOn", value, 1)[0]);
+        }
+        Rules defaults = Rules.standard();
+        String min = properties.getProperty("minBet");
+        String max = properties.getProperty("maxBet");
+        if (min != null || max != null) {
+            builder.betLimits(min == null ? defaults.getMinBet() : parseInts("minBet", min, 1)[0],
+                    max == null ? defaults.getMaxBet() : parseInts("maxBet", max, 1)[0]);
+        }
+        if ((value = properties.getProperty("initialBalance")) != null) {
+            builder.initialBalance(parseInts("initialBalance", value, 1)[0]);
+        }
+        if ((value = properties.getProperty("insurancePays")) != null) {
+            builder.insurancePays(parseInts("insurancePays", value, 1)[0]);
+        }
+        if ((value = properties.getProperty("perfectPairsPays")) != null) {
+            int[] pays = parseInts("perfectPairsPays", value, 3);
+            builder.perfectPairsPays(pays[0], pays[1], pays[2]);
+        }
+        if ((value = properties.getProperty("twentyOnePlusThreePays")) != null) {
+            int[] pays = parseInts("twentyOnePlusThreePays", value, 5);
+            builder.twentyOnePlusThreePays(pays[0], pays[1], pays[2], pays[3], pays[4]);
+        }
+        return builder.build();
+    }
+
+    /** Writes {@code rules} in the format {@link #read} expects. */
+    static void store(Rules rules, File file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("hitSoft17", String.valueOf(rules.isHitSoft17()));
+        properties.setProperty("doubleAfterSplit", String.valueOf(rules.isDoubleAfterSplit()));
+        properties.setProperty("resplitAces", String.valueOf(rules.isResplitAces()));
+        properties.setProperty("surrender", String.valueOf(rules.isSurrender()));
+        properties.setProperty("insurance", String.valueOf(rules.offersInsurance()));
+        properties.setProperty("sideBets", String.valueOf(rules.offersSideBets()));
+        properties.setProperty("maxHands", String.valueOf(rules.getMaxHands()));
+        properties.setProperty("blackjackPays", rules.getBlackjackNumerator() + ":" + rules.getBlackjackDenominator());
+        properties.setProperty("doubleOn", rules.getDoubleOn().name());
+        properties.setProperty("dealerStandsOn", String.valueOf(rules.getDealerStandsOn()));
+        properties.setProperty("minBet", String.valueOf(rules.getMinBet()));
+        properties.setProperty("maxBet", String.valueOf(rules.getMaxBet()));
+        properties.setProperty("initialBalance", String.valueOf(rules.getInitialBalance()));
+        properties.setProperty("insurancePays", String.valueOf(rules.getInsurancePays()));
+        properties.setProperty("perfectPairsPays", rules.perfectPairsPays(SideBets.MIXED_PAIR) + ","
+                + rules.perfectPairsPays(SideBets.COLOURED_PAIR) + "," + rules.perfectPairsPays(SideBets.PERFECT_PAIR));
+        properties.setProperty("twentyOnePlusThreePays", rules.twentyOnePlusThreePays(SideBets.FLUSH) + ","
+                + rules.twentyOnePlusThreePays(SideBets.STRAIGHT) + ","
+                + rules.twentyOnePlusThreePays(SideBets.THREE_OF_A_KIND) + ","
+                + rules.twentyOnePlusThreePays(SideBets.STRAIGHT_FLUSH) + ","
+                + rules.twentyOnePlusThreePays(SideBets.SUITED_TRIPS));
+        try (OutputStream out = new FileOutputStream(file)) {
+            properties.store(out, "Table rules, reloaded by running tables when this file changes");
+        }
+    }
+
+    private static boolean parseBoolean(String key, String value) {
+        String trimmed = value.trim();
+        if (trimmed.equalsIgnoreCase("true")) {
+            return true;
+        }
+        if (trimmed.equalsIgnoreCase("false")) {
+            return false;
+        }
+        throw new IllegalArgumentException(key + " must be true or false, not " + value);
+    }
+
+    private static int[] parseInts(String key, String value, int count) {
+        String[] parts = value.split(",");
+        if (parts.length != count) {
+            throw new IllegalArgumentException(key + " needs " + count + " number(s), not " + value);
+        }
+        int[] numbers = new int[count];
+        for (int i = 0; i < count; i++) {
+            try {
+                numbers[i] = Integer.parseInt(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(key + " has a bad number: " + value);
+            }
+        }
+        return numbers;
+    }
+}
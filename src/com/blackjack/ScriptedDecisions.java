@@ -0,0 +1,130 @@
+package com.blackjack;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
+/**
+ * Replays a recorded session. The first line is the player name, followed by
+ * one whitespace separated token per round: the bet and then the decisions,
+ * e.g. {@code 25hs 10s 40hhs}. Decisions are {@code h}, {@code s}, {@code d}
+ * (double), {@code p} (split) and {@code r} (surrender); an {@code i} as the
+ * next decision takes insurance when it is offered. A hand that runs out of
+ * decisions stays.
+ */
+public class ScriptedDecisions implements DecisionSource {
+    private Reader in;
+    private String playerName;
+    private char[] actions;
+    private int actionCount;
+    private int actionPos;
+    private int peeked;
+
+    public ScriptedDecisions(Reader in) {
+        this.in = in instanceof BufferedReader ? in : new BufferedReader(in, 1 << 16);
+        this.actions = new char[16];
+        this.peeked = -2;
+        this.playerName = readLine();
+    }
+
+    @Override
+    public String playerName() {
+        return playerName;
+    }
+
+    @Override
+    public int nextBet(int earnings, int betMin) {
+        int c = skipWhitespace();
+        if (c < '0' || c > '9') {
+            throw new IllegalStateException("Expected a bet in scripted input, found " + describe(c));
+        }
+        int bet = 0;
+        c = read();
+        while (c >= '0' && c <= '9') {
+            bet = bet * 10 + (c - '0');
+            c = read();
+        }
+
+        actionCount = 0;
+        actionPos = 0;
+        while (c != -1 && !Character.isWhitespace(c)) {
+            if (actionCount == actions.length) {
+                char[] grown = new char[actions.length * 2];
+                System.arraycopy(actions, 0, grown, 0, actionCount);
+                actions = grown;
+            }
+            actions[actionCount++] = (char) c;
+            c = read();
+        }
+        return bet;
+    }
+
+    @Override
+    public Action decide(Player player, Hand hand, Card houseUpcard, int allowedActions) {
+        while (actionPos < actionCount && actions[actionPos] == 'i') {
+            actionPos++;
+        }
+        if (actionPos == actionCount) {
+            return Action.STAY;
+        }
+        char code = actions[actionPos++];
+        Action action = Action.fromCode(code);
+        if (action == null) {
+            throw new IllegalStateException("Unknown decision '" + code + "' in scripted input");
+        }
+        return action;
+    }
+
+    @Override
+    public boolean takeInsurance(Player player, Hand hand) {
+        if (actionPos < actionCount && actions[actionPos] == 'i') {
+            actionPos++;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean playAgain(int earnings) {
+        return skipWhitespace() != -1;
+    }
+
+    private String readLine() {
+        StringBuilder sb = new StringBuilder();
+        int c = read();
+        while (c != -1 && c != '\n') {
+            if (c != '\r') {
+                sb.append((char) c);
+            }
+            c = read();
+        }
+        return sb.toString().trim();
+    }
+
+    private int skipWhitespace() {
+        int c = read();
+        while (c != -1 && Character.isWhitespace(c)) {
+            c = read();
+        }
+        peeked = c;
+        return c;
+    }
+
+    private int read() {
+        if (peeked != -2) {
+            int c = peeked;
+            peeked = -2;
+            return c;
+        }
+        try {
+            return in.read();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String describe(int c) {
+        return c == -1 ? "end of input" : "'" + (char) c + "'";
+    }
+}
@@ -0,0 +1,398 @@
+package com.blackjack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Statistical checks that the shuffles are unbiased. Each subject shuffles a
+ * shoe and deals it out many times in parallel, and the counts are tested
+ * three ways:
+ * <ul>
+ * <li>a chi-square test of the position-by-card frequency matrix, which
+ * every card should fill evenly;</li>
+ * <li>a chi-square test of the card-then-next-card pair matrix, which
+ * catches shuffles that keep neighbours together;</li>
+ * <li>the lag-1 correlation of consecutive card points within a deal, which
+ * for a fair shuffle is exactly -1/(cards-1), and between the first cards of
+ * consecutive shuffles from one stream, which should be 0.</li>
+ * </ul>
+ * Work is split into tasks with their own {@link RandomStreams} stream and
+ * primitive count arrays, merged in task order, so a run is reproducible for
+ * a seed on any number of threads.
+ *
+ * <p>The legacy console game's {@code Main} draws by swapping a random
+ * remaining card to the end, which is replayed here on an array. The old
+ * {@code Math.random} swap shuffle that picked its partner from the whole
+ * deck is kept as a control: it is biased, and the suite reports an error if
+ * it fails to detect that.
+ *
+ * <pre>
+ * java com.blackjack.ShuffleFairness --shuffles 200000000 --decks 1 --threads 8 --seed 1
+ * </pre>
+ */
+public class ShuffleFairness {
+
+    /** Tests with a p-value below this fail. */
+    static final double ALPHA = 1e-4;
+    private static final int TASKS = 64;
+
+    public enum Subject {
+        /** {@link Deck} in eager mode: a full Fisher-Yates shuffle on every reset. */
+        DECK_EAGER(false) {
+            @Override
+            Dealer dealer(int decks, RandomSource random) {
+                Deck deck = new Deck(decks, random, ShuffleMode.EAGER);
+                return order -> {
+                    deck.reset();
+                    for (int i = 0; i < order.length; i++) {
+                        order[i] = deck.dealCard().getCode();
+                    }
+                };
+            }
+        },
+        /** {@link Deck} in lazy mode: one Fisher-Yates step per deal. */
+        DECK_LAZY(false) {
+            @Override
+            Dealer dealer(int decks, RandomSource random) {
+                Deck deck = new Deck(decks, random, ShuffleMode.LAZY);
+                return order -> {
+                    deck.reset();
+                    for (int i = 0; i < order.length; i++) {
+                        order[i] = deck.dealCard().getCode();
+                    }
+                };
+            }
+        },
+        /** {@code Main}'s draw: a random remaining card moves to the end and is removed. */
+        MAIN_DRAW(false) {
+            @Override
+            Dealer dealer(int decks, RandomSource random) {
+                int[] cards = new int[decks * Card.DECK_SIZE];
+                return order -> {
+                    for (int i = 0; i < cards.length; i++) {
+                        cards[i] = i % Card.DECK_SIZE;
+                    }
+                    for (int n = cards.length, i = 0; n > 0; n--, i++) {
+                        int j = random.nextInt(n);
+                        order[i] = cards[j];
+                        cards[j] = cards[n - 1];
+                    }
+                };
+            }
+        },
+        /** Control: swaps every position with one chosen from the whole deck, which is biased. */
+        NAIVE_SWAP(true) {
+            @Override
+            Dealer dealer(int decks, RandomSource random) {
+                int[] cards = new int[decks * Card.DECK_SIZE];
+                return order -> {
+                    for (int i = 0; i < cards.length; i++) {
+                        cards[i] = i % Card.DECK_SIZE;
+                    }
+                    for (int i = 0; i < cards.length; i++) {
+                        int j = random.nextInt(cards.length);
+                        int card = cards[i];
+                        cards[i] = cards[j];
+                        cards[j] = card;
+                    }
+                    System.arraycopy(cards, 0, order, 0, cards.length);
+                };
+            }
+        };
+
+        private boolean control;
+
+        Subject(boolean control) {
+            this.control = control;
+        }
+
+        public boolean isControl() {
+            return control;
+        }
+
+        abstract Dealer dealer(int decks, RandomSource random);
+    }
+
+    /** Fills {@code order} with the card codes of one freshly shuffled shoe, in deal order. */
+    interface Dealer {
+        void deal(int[] order);
+    }
+
+    /** Counts gathered by one task, or the merge of all of them. */
+    static class Tally {
+        final int cards;
+        final long[] positions;
+        final long[] pairs;
+        long shuffles;
+        long lagN;
+        long lagX;
+        long lagY;
+        long lagXY;
+        long lagXX;
+        long lagYY;
+        long crossN;
+        long crossX;
+        long crossY;
+        long crossXY;
+        long crossXX;
+        long crossYY;
+
+        Tally(int cards) {
+            this.cards = cards;
+            this.positions = new long[cards * Card.DECK_SIZE];
+            this.pairs = new long[Card.DECK_SIZE * Card.DECK_SIZE];
+        }
+
+        void run(Dealer dealer, long count) {
+            int[] order = new int[cards];
+            int previousFirst = -1;
+            for (long n = 0; n < count; n++) {
+                dealer.deal(order);
+                int previous = order[0];
+                int previousPoints = POINTS[previous];
+                positions[previous]++;
+                for (int i = 1; i < cards; i++) {
+                    int card = order[i];
+                    int points = POINTS[card];
+                    positions[i * Card.DECK_SIZE + card]++;
+                    pairs[previous * Card.DECK_SIZE + card]++;
+                    lagX += previousPoints;
+                    lagY += points;
+                    lagXY += previousPoints * points;
+                    lagXX += previousPoints * previousPoints;
+                    lagYY += points * points;
+                    previous = card;
+                    previousPoints = points;
+                }
+                int first = POINTS[order[0]];
+                if (previousFirst >= 0) {
+                    crossX += previousFirst;
+                    crossY += first;
+                    crossXY += previousFirst * first;
+                    crossXX += previousFirst * previousFirst;
+                    crossYY += first * first;
+                    crossN++;
+                }
+                previousFirst = first;
+            }
+            shuffles += count;
+            lagN += count * (cards - 1);
+        }
+
+        void add(Tally other) {
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] += other.positions[i];
+            }
+            for (int i = 0; i < pairs.length; i++) {
+                pairs[i] += other.pairs[i];
+            }
+            shuffles += other.shuffles;
+            lagN += other.lagN;
+            lagX += other.lagX;
+            lagY += other.lagY;
+            lagXY += other.lagXY;
+            lagXX += other.lagXX;
+            lagYY += other.lagYY;
+            crossN += other.crossN;
+            crossX += other.crossX;
+            crossY += other.crossY;
+            crossXY += other.crossXY;
+            crossXX += other.crossXX;
+            crossYY += other.crossYY;
+        }
+    }
+
+    /** The outcome of one test on one subject. */
+    public static class Result {
+        private final String test;
+        private final double statistic;
+        private final double pValue;
+
+        Result(String test, double statistic, double pValue) {
+            this.test = test;
+            this.statistic = statistic;
+            this.pValue = pValue;
+        }
+
+        public boolean passed() {
+            return pValue >= ALPHA;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-22s %14.4f   p=%.4g   %s", test, statistic, pValue, passed() ? "pass" : "FAIL");
+        }
+    }
+
+    private static final int[] POINTS = new int[Card.DECK_SIZE];
+
+    static {
+        for (int code = 0; code < Card.DECK_SIZE; code++) {
+            POINTS[code] = Card.of(code).getHardPoints();
+        }
+    }
+
+    private int decks;
+    private int threads;
+    private long seed;
+
+    public ShuffleFairness(int decks, int threads, long seed) {
+        this.decks = decks;
+        this.threads = threads;
+        this.seed = seed;
+    }
+
+    /** Shuffles and deals {@code shuffles} shoes with the subject and returns the merged counts. */
+    Tally tally(Subject subject, long shuffles) throws InterruptedException {
+        int cards = decks * Card.DECK_SIZE;
+        RandomStreams streams = new RandomStreams(RandomAlgorithm.XOSHIRO256PP, seed ^ subject.ordinal());
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Tally>> futures = new ArrayList<>();
+        for (int task = 0; task < TASKS; task++) {
+            long count = shuffles / TASKS + (task < shuffles % TASKS ? 1 : 0);
+            RandomSource random = streams.stream(task);
+            futures.add(pool.submit(() -> {
+                Tally tally = new Tally(cards);
+                tally.run(subject.dealer(decks, random), count);
+                return tally;
+            }));
+        }
+        Tally total = new Tally(cards);
+        try {
+            for (Future<Tally> future : futures) {
+                total.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Shuffle worker failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return total;
+    }
+
+    /** Runs the tests on the merged counts of one subject. */
+    List<Result> test(Tally tally) {
+        List<Result> results = new ArrayList<>();
+        int cards = tally.cards;
+
+        double expected = tally.shuffles / (double) Card.DECK_SIZE;
+        double chi = 0;
+        for (long observed : tally.positions) {
+            chi += (observed - expected) * (observed - expected) / expected;
+        }
+        int df = (cards - 1) * (Card.DECK_SIZE - 1);
+        results.add(new Result("position x card chi2", chi, chiSquareTail(chi, df)));
+
+        double pairs = tally.shuffles * (double) (cards - 1);
+        chi = 0;
+        df = -1;
+        for (int a = 0; a < Card.DECK_SIZE; a++) {
+            for (int b = 0; b < Card.DECK_SIZE; b++) {
+                double p = decks * (double) (decks - (a == b ? 1 : 0)) / (cards * (double) (cards - 1));
+                if (p > 0) {
+                    double e = pairs * p;
+                    long observed = tally.pairs[a * Card.DECK_SIZE + b];
+                    chi += (observed - e) * (observed - e) / e;
+                    df++;
+                }
+            }
+        }
+        results.add(new Result("neighbour pair chi2", chi, chiSquareTail(chi, df)));
+
+        double r = correlation(tally.lagN, tally.lagX, tally.lagY, tally.lagXY, tally.lagXX, tally.lagYY);
+        double fair = -1.0 / (cards - 1);
+        double z = (r - fair) * Math.sqrt(tally.lagN / (double) (cards - 1));
+        results.add(new Result("lag-1 correlation", r, 2 * normalTail(Math.abs(z))));
+
+        r = correlation(tally.crossN, tally.crossX, tally.crossY, tally.crossXY, tally.crossXX, tally.crossYY);
+        z = r * Math.sqrt(tally.crossN);
+        results.add(new Result("shuffle-to-shuffle corr", r, 2 * normalTail(Math.abs(z))));
+        return results;
+    }
+
+    private static double correlation(long n, long x, long y, long xy, long xx, long yy) {
+        double covariance = xy - (double) x * y / n;
+        double varX = xx - (double) x * x / n;
+        double varY = yy - (double) y * y / n;
+        return covariance / Math.sqrt(varX * varY);
+    }
+
+    /** Upper tail of chi-square with {@code df} degrees of freedom, by the Wilson-Hilferty approximation. */
+    static double chiSquareTail(double chi, int df) {
+        double v = 2.0 / (9.0 * df);
+        double z = (Math.cbrt(chi / df) - (1 - v)) / Math.sqrt(v);
+        return normalTail(z);
+    }
+
+    /** P(Z > z) for a standard normal Z. */
+    static double normalTail(double z) {
+        return 0.5 * erfc(z / Math.sqrt(2));
+    }
+
+    /** Complementary error function, fractional error below 1.2e-7 (Numerical Recipes erfcc). */
+    private static double erfc(double x) {
+        double z = Math.abs(x);
+        double t = 1 / (1 + 0.5 * z);
+        double r = t * Math.exp(-z * z - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+                + t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587
+                + t * (-0.82215223 + t * 0.17087277)))))))));
+        return x >= 0 ? r : 2 - r;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        long shuffles = 200_000_000L;
+        int decks = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = System.nanoTime();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--shuffles":
+                    shuffles = Long.parseLong(args[++i]);
+                    break;
+                case "--decks":
+                    decks = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    System.out.println("Unknown option: " + args[i]);
+                    return;
+            }
+        }
+
+        ShuffleFairness fairness = new ShuffleFairness(decks, threads, seed);
+        System.out.printf("Shuffles: %,d per subject, %d deck(s), %d threads, seed %d, alpha %g%n", shuffles, decks,
+                threads, seed, ALPHA);
+        boolean ok = true;
+        for (Subject subject : Subject.values()) {
+            long started = System.nanoTime();
+            Tally tally = fairness.tally(subject, shuffles);
+            double elapsed = (System.nanoTime() - started) / 1e9;
+            System.out.printf("%n%s%s: %,d cards dealt in %.1f s%n", subject, subject.isControl() ? " (control)" : "",
+                    tally.shuffles * tally.cards, elapsed);
+            boolean passed = true;
+            for (Result result : fairness.test(tally)) {
+                System.out.println("  " + result);
+                passed &= result.passed();
+            }
+            if (subject.isControl() && passed) {
+                System.out.println("  control bias was not detected; run more shuffles");
+                ok = false;
+            } else if (!subject.isControl() && !passed) {
+                ok = false;
+            }
+        }
+        System.out.println(ok ? "\nAll shuffles passed." : "\nShuffle fairness check FAILED.");
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.blackjack;
+
+public enum ShuffleMode {
+    /** Full Fisher-Yates shuffle whenever the shoe is reset. */
+    EAGER,
+    /** Randomize one card per deal; resetting the shoe is O(1). */
+    LAZY,
+    /**
+     * Continuous shuffling machine: the shoe is never reshuffled, and the
+     * cards from each round go back into random positions.
+     */
+    CONTINUOUS
+}
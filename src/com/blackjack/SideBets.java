@@ -0,0 +1,98 @@
+package com.blackjack;
+
+/**
+ * Perfect Pairs and 21+3 side bets. Both are settled from tables built once
+ * and indexed by {@link Card#getCode()} values, so settling a side bet is a
+ * single array read with no branching on suits or values. Table entries are
+ * the winning category, 0 when the bet loses, and {@link Rules} maps the
+ * category to the table's payout.
+ *
+ * <p>Perfect Pairs looks at the player's first two cards: a mixed pair, a
+ * coloured pair or a perfect pair (same rank and suit, possible in a
+ * multi-deck shoe). 21+3 looks at the player's two cards and the dealer's
+ * upcard for a flush, straight, three of a kind, straight flush or suited
+ * trips. Aces count high or low in a straight.
+ */
+public final class SideBets {
+
+    public static final int MIXED_PAIR = 1;
+    public static final int COLOURED_PAIR = 2;
+    public static final int PERFECT_PAIR = 3;
+
+    public static final int FLUSH = 1;
+    public static final int STRAIGHT = 2;
+    public static final int THREE_OF_A_KIND = 3;
+    public static final int STRAIGHT_FLUSH = 4;
+    public static final int SUITED_TRIPS = 5;
+
+    private static final int CODES = Card.DECK_SIZE;
+    private static final int RANKS = Card.Value.values().length;
+
+    private static final byte[] PAIRS = new byte[CODES * CODES];
+    private static final byte[] THREE_CARD = new byte[CODES * CODES * CODES];
+
+    static {
+        for (int a = 0; a < CODES; a++) {
+            for (int b = 0; b < CODES; b++) {
+                PAIRS[a * CODES + b] = (byte) pairCategory(a, b);
+                for (int c = 0; c < CODES; c++) {
+                    THREE_CARD[(a * CODES + b) * CODES + c] = (byte) threeCardCategory(a, b, c);
+                }
+            }
+        }
+    }
+
+    private SideBets() {
+    }
+
+    /** The Perfect Pairs category of the player's first two cards. */
+    public static int perfectPairs(int first, int second) {
+        return PAIRS[first * CODES + second];
+    }
+
+    /** The 21+3 category of the player's first two cards and the dealer's upcard. */
+    public static int twentyOnePlusThree(int first, int second, int upcard) {
+        return THREE_CARD[(first * CODES + second) * CODES + upcard];
+    }
+
+    /** The amount returned for a side bet of {@code bet} paying {@code payout} to one: stake plus winnings, or 0. */
+    public static int returned(int bet, int payout) {
+        return payout == 0 ? 0 : bet * (payout + 1);
+    }
+
+    private static int pairCategory(int a, int b) {
+        if (a % RANKS != b % RANKS) {
+            return 0;
+        }
+        int suitA = a / RANKS;
+        int suitB = b / RANKS;
+        if (suitA == suitB) {
+            return PERFECT_PAIR;
+        }
+        return red(suitA) == red(suitB) ? COLOURED_PAIR : MIXED_PAIR;
+    }
+
+    private static boolean red(int suit) {
+        return suit == Card.Suit.DIAMONDS.ordinal() || suit == Card.Suit.HEARTS.ordinal();
+    }
+
+    private static int threeCardCategory(int a, int b, int c) {
+        int rankA = a % RANKS;
+        int rankB = b % RANKS;
+        int rankC = c % RANKS;
+        boolean flush = a / RANKS == b / RANKS && b / RANKS == c / RANKS;
+        if (rankA == rankB && rankB == rankC) {
+            return flush ? SUITED_TRIPS : THREE_OF_A_KIND;
+        }
+        int low = Math.min(rankA, Math.min(rankB, rankC));
+        int high = Math.max(rankA, Math.max(rankB, rankC));
+        boolean distinct = rankA != rankB && rankB != rankC && rankA != rankC;
+        int ace = Card.Value.ACE.ordinal();
+        boolean wheel = high == ace && distinct && rankA + rankB + rankC == ace + Card.Value.TWO.ordinal() + Card.Value.THREE.ordinal();
+        boolean straight = distinct && (high - low == 2 || wheel);
+        if (straight) {
+            return flush ? STRAIGHT_FLUSH : STRAIGHT;
+        }
+        return flush ? FLUSH : 0;
+    }
+}
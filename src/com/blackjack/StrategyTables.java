@@ -0,0 +1,271 @@
+package com.blackjack;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.stream.IntStream;
+
+/**
+ * Dealer outcome probabilities and per-action player expectations for a
+ * ruleset and shoe size, backed by a memory-mapped cache file so a restart
+ * only pays for mapping the file.
+ *
+ * <p>Files are named by a fingerprint of the format version, the ruleset and
+ * the dealer and blackjack constants, so changing any of them simply misses
+ * the cache and computes a new file. The layout is little-endian:
+ *
+ * <pre>
+ * magic "BJST", format version, decks        3 ints
+ * fingerprint                                 long
+ * player expectation                          double
+ * dealer[up][17..21, bust]                    10 x 6 doubles
+ * value[up][card1][card2][action]             10 x 10 x 10 x 5 doubles
+ * hint[up][soft][total][hit, stay][term]       10 x 2 x 32 x 2 x 11 doubles
+ * </pre>
+ *
+ * Ranks are {@link HouseEdgeCalculator} rank indexes and actions are
+ * {@link Action} ordinals. Values are conditioned on the dealer not holding
+ * blackjack and are {@code NaN} where the rules forbid the action.
+ *
+ * <p>The hint section holds hit and stay values by hand total, taken from a
+ * representative hand for each total (see {@link #hintCards}). Term 0 is
+ * the value for the full shoe and term {@code 1 + rank} is how much it
+ * changes when one more card of that rank is removed, which lets
+ * {@link HintService} adjust for the cards already seen.
+ */
+public class StrategyTables {
+
+    static final int MAGIC = 0x5453_4a42;
+    static final int VERSION = 2;
+
+    private static final int RANKS = HouseEdgeCalculator.RANKS;
+    private static final int OUTCOMES = 6;
+    private static final int ACTIONS = Action.values().length;
+    private static final int TOTALS = 32;
+    private static final int TERMS = 1 + HouseEdgeCalculator.RANKS;
+    private static final int HEADER = 3 * Integer.BYTES + Long.BYTES + Double.BYTES;
+    private static final int DEALER = HEADER;
+    private static final int VALUES = DEALER + RANKS * OUTCOMES * Double.BYTES;
+    private static final int HINTS = VALUES + RANKS * RANKS * RANKS * ACTIONS * Double.BYTES;
+    private static final int SIZE = HINTS + RANKS * 2 * TOTALS * 2 * TERMS * Double.BYTES;
+
+    private ByteBuffer table;
+    private Rules rules;
+    private int decks;
+
+    private StrategyTables(ByteBuffer table, Rules rules, int decks) {
+        this.table = table;
+        this.rules = rules;
+        this.decks = decks;
+    }
+
+    /** Maps the cached tables for these rules, computing and writing them first if there are none. */
+    public static StrategyTables load(File directory, Rules rules, int decks) throws IOException {
+        long fingerprint = fingerprint(rules, decks);
+        File file = new File(directory, String.format("tables-%016x.bin", fingerprint));
+        if (file.isFile()) {
+            ByteBuffer table = map(file);
+            if (table != null && table.getLong(3 * Integer.BYTES) == fingerprint) {
+                return new StrategyTables(table, rules, decks);
+            }
+        }
+
+        directory.mkdirs();
+        File temp = File.createTempFile("tables", ".tmp", directory);
+        try {
+            try (RandomAccessFile out = new RandomAccessFile(temp, "rw")) {
+                out.write(compute(rules, decks, fingerprint).array());
+                out.getFD().sync();
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            temp.delete();
+        }
+        ByteBuffer table = map(file);
+        if (table == null) {
+            throw new IOException("Cache file was not written correctly: " + file);
+        }
+        return new StrategyTables(table, rules, decks);
+    }
+
+    private static ByteBuffer map(File file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            if (in.length() != SIZE) {
+                return null;
+            }
+            MappedByteBuffer buffer = in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, SIZE);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION) {
+                return null;
+            }
+            return buffer;
+        }
+    }
+
+    private static ByteBuffer compute(Rules rules, int decks, long fingerprint) {
+        int[] shoe = HouseEdgeCalculator.fullShoe(decks);
+        HouseEdgeCalculator calculator = new HouseEdgeCalculator(rules, shoe);
+        ByteBuffer table = ByteBuffer.allocate(SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        table.putInt(MAGIC).putInt(VERSION).putInt(decks).putLong(fingerprint);
+        table.putDouble(calculator.playerExpectation());
+
+        for (int up = 0; up < RANKS; up++) {
+            shoe[up]--;
+            for (double p : calculator.dealerProbabilities(shoe, up)) {
+                table.putDouble(p);
+            }
+            shoe[up]++;
+        }
+        for (int up = 0; up < RANKS; up++) {
+            for (int c1 = 0; c1 < RANKS; c1++) {
+                for (int c2 = 0; c2 < RANKS; c2++) {
+                    for (double value : calculator.actionValues(up, Math.min(c1, c2), Math.max(c1, c2))) {
+                        table.putDouble(value);
+                    }
+                }
+            }
+        }
+
+        // Term 0 comes from the full shoe, term 1 + r from a shoe one card of rank r short.
+        double[][] hints = new double[TERMS][];
+        hints[0] = hintValues(calculator, shoe);
+        IntStream.range(0, RANKS).parallel().forEach(rank -> {
+            int[] reduced = shoe.clone();
+            reduced[rank]--;
+            hints[1 + rank] = hintValues(new HouseEdgeCalculator(rules, reduced), reduced);
+        });
+        for (int i = 0; i < hints[0].length; i++) {
+            table.putDouble(hints[0][i]);
+            for (int rank = 0; rank < RANKS; rank++) {
+                table.putDouble(hints[1 + rank][i] - hints[0][i]);
+            }
+        }
+        return table;
+    }
+
+    /** Hit and stay values by [up][soft][total][hit, stay], zero for totals no hand can hold. */
+    private static double[] hintValues(HouseEdgeCalculator calculator, int[] shoe) {
+        double[] values = new double[RANKS * 2 * TOTALS * 2];
+        for (int up = 0; up < RANKS; up++) {
+            for (int soft = 0; soft < 2; soft++) {
+                for (int total = 0; total < TOTALS; total++) {
+                    int[] cards = hintCards(soft == 1, total);
+                    if (cards == null) {
+                        continue;
+                    }
+                    int[] comp = shoe.clone();
+                    comp[up]--;
+                    int hard = 0;
+                    for (int card : cards) {
+                        comp[card]--;
+                        hard += HouseEdgeCalculator.points(card);
+                    }
+                    int index = ((up * 2 + soft) * TOTALS + total) * 2;
+                    values[index] = calculator.hit(comp, hard, soft == 1, up, 0);
+                    values[index + 1] = calculator.stand(comp, total, up);
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * The representative hand behind the hint values for a total: ace and
+     * {@code total - 11} for soft totals, ten and {@code total - 10} (or a
+     * two and the rest) for hard totals, and ten, nine, two for hard 21.
+     * Returns null for totals no hand can hold.
+     */
+    static int[] hintCards(boolean soft, int total) {
+        int ace = HouseEdgeCalculator.ACE;
+        int ten = HouseEdgeCalculator.TEN;
+        if (soft) {
+            if (total < 12 || total > 21) {
+                return null;
+            }
+            return new int[] { ace, total == 12 ? ace : total - 12 };
+        }
+        if (total < 4 || total > 21) {
+            return null;
+        }
+        if (total == 21) {
+            return new int[] { ten, ten - 1, 1 };
+        }
+        int low = Math.max(2, total - 10);
+        return new int[] { low - 1, total - low - 1 };
+    }
+    /** FNV-1a over everything the tables depend on. */
+    static long fingerprint(Rules rules, int decks) {
+        String key = VERSION + "|" + rules + "|" + decks + "|" + Rules.DEALER_MINIMUM;
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    public Rules getRules() {
+        return rules;
+    }
+
+    public int getDecks() {
+        return decks;
+    }
+
+    public double playerExpectation() {
+        return table.getDouble(HEADER - Double.BYTES);
+    }
+
+    /** Probability of the dealer finishing on 17 through 21 ({@code outcome} 0 to 4) or busting (5). */
+    public double dealerProbability(int up, int outcome) {
+        return table.getDouble(DEALER + (up * OUTCOMES + outcome) * Double.BYTES);
+    }
+
+    public double value(int up, int c1, int c2, Action action) {
+        return table.getDouble(VALUES + (((up * RANKS + c1) * RANKS + c2) * ACTIONS + action.ordinal()) * Double.BYTES);
+    }
+
+    /**
+     * A hint table entry: {@code term} 0 is the full-shoe value of hitting
+     * or staying on the total, {@code 1 + rank} its change per extra card of
+     * that rank removed.
+     */
+    public double hintValue(int up, boolean soft, int total, Action action, int term) {
+        int index = ((up * 2 + (soft ? 1 : 0)) * TOTALS + total) * 2 + (action == Action.HIT ? 0 : 1);
+        return table.getDouble(HINTS + (index * TERMS + term) * Double.BYTES);
+    }
+
+    /** The allowed action with the highest expectation for a starting deal. */
+    public Action bestAction(int up, int c1, int c2) {
+        Action best = Action.STAY;
+        double bestValue = value(up, c1, c2, best);
+        for (Action action : Action.values()) {
+            double v = value(up, c1, c2, action);
+            if (v > bestValue) {
+                best = action;
+                bestValue = v;
+            }
+        }
+        return best;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int decks = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        long started = System.nanoTime();
+        StrategyTables tables = load(new File("strategy_cache"), Rules.standard(), decks);
+        long elapsed = System.nanoTime() - started;
+
+        System.out.println("Rules:       " + tables.getRules());
+        System.out.println("Decks:       " + decks);
+        System.out.printf("House edge:  %.4f%%%n", -100 * tables.playerExpectation());
+        System.out.printf("Loaded in:   %.2f ms%n", elapsed / 1e6);
+    }
+}
@@ -0,0 +1,344 @@
+package com.blackjack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Learns a hit/stay policy by Q-learning with epsilon-greedy exploration.
+ * Standing is scored by the settled result of the hand; hitting is scored by
+ * the bust loss or by the best value of the state it leads to. A state is
+ * (player total, soft flag, dealer upcard rank) and, when counting is
+ * enabled, a Hi-Lo true count bucket; Q-values are kept in flat arrays
+ * indexed by state * 2 + action.
+ *
+ * <p>Training runs in batches. Each worker plays its share of a batch
+ * against its own shoe and a private copy of the policy, accumulating
+ * returns in its own tables; between batches the coordinator folds those
+ * into the shared tables and hands out the new policy, so no table is ever
+ * written by two threads. The work is split into a fixed number of tasks,
+ * each with its own {@link RandomStreams} stream, and merged in task order,
+ * so a given seed and task count train the same tables on any number of
+ * threads. Hands are played as in {@link Game}: the dealer
+ * peeks for blackjack and draws by {@link Rules#dealerHits(int, boolean)}.
+ * Doubling, splitting and surrender are outside the learned policy.
+ */
+public class StrategyTrainer {
+
+    public static final int HIT = 0;
+    public static final int STAY = 1;
+
+    static final int COUNT_BUCKETS = 11;
+    private static final int MAX_TRUE_COUNT = COUNT_BUCKETS / 2;
+    private static final int TOTALS = 32;
+    private static final double PENETRATION = 0.75;
+    private static final long VISIT_CAP = 1 << 18;
+
+    private Rules rules;
+    private int decks;
+    private boolean counting;
+    private double blackjackPays;
+    private double[] q;
+    private long[] visits;
+
+    public StrategyTrainer(Rules rules, int decks, boolean counting) {
+        this.rules = rules;
+        this.decks = decks;
+        this.counting = counting;
+        this.blackjackPays = (double) rules.getBlackjackNumerator() / rules.getBlackjackDenominator();
+        int states = (counting ? COUNT_BUCKETS : 1) * 2 * TOTALS * HouseEdgeCalculator.RANKS;
+        this.q = new double[states * 2];
+        this.visits = new long[states * 2];
+    }
+
+    static int state(int bucket, boolean soft, int total, int upcard) {
+        return ((bucket * 2 + (soft ? 1 : 0)) * TOTALS + total) * HouseEdgeCalculator.RANKS + upcard;
+    }
+
+    /**
+     * Trains for the given number of episodes on {@code tasks} workers run by
+     * {@code threads} threads, merging worker tables every {@code batch}
+     * episodes per task.
+     */
+    public void train(long episodes, int batch, int tasks, int threads, long seed) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        RandomStreams streams = new RandomStreams(RandomAlgorithm.XOSHIRO256PP, seed);
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            workers.add(new Worker(streams.stream(i)));
+        }
+        try {
+            long played = 0;
+            while (played < episodes) {
+                double epsilon = Math.max(0.01, 1.0 - (double) played / (episodes * 0.8));
+                long share = Math.min(batch, (episodes - played + tasks - 1) / tasks);
+                List<Future<?>> futures = new ArrayList<>();
+                for (Worker worker : workers) {
+                    worker.prepare(q, epsilon, share);
+                    futures.add(pool.submit(worker));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                for (Worker worker : workers) {
+                    worker.mergeInto(q, visits);
+                }
+                played += share * tasks;
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Training worker failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /** Average return per hand of the greedy policy over fresh shoes. */
+    public double evaluate(long hands, long seed) {
+        Worker worker = new Worker(RandomAlgorithm.XOSHIRO256PP.create(seed));
+        worker.prepare(q, 0, 0);
+        double total = 0;
+        for (long i = 0; i < hands; i++) {
+            total += worker.playEpisode(false);
+        }
+        return total / hands;
+    }
+
+    public int bestAction(int bucket, boolean soft, int total, int upcard) {
+        int s = state(bucket, soft, total, upcard) * 2;
+        return q[s + HIT] > q[s + STAY] ? HIT : STAY;
+    }
+
+    public double getValue(int bucket, boolean soft, int total, int upcard, int action) {
+        return q[state(bucket, soft, total, upcard) * 2 + action];
+    }
+
+    public boolean isCounting() {
+        return counting;
+    }
+
+    private class Worker implements Runnable {
+        private Deck deck;
+        private RandomSource random;
+        private double[] policy;
+        private double[] sums;
+        private long[] counts;
+        private int[] trail;
+        private double epsilon;
+        private long episodes;
+        private int runningCount;
+
+        Worker(RandomSource random) {
+            this.random = random;
+            this.deck = new Deck(decks, random, ShuffleMode.LAZY);
+            this.policy = new double[q.length];
+            this.sums = new double[q.length];
+            this.counts = new long[q.length];
+            this.trail = new int[TOTALS];
+        }
+
+        void prepare(double[] shared, double epsilon, long episodes) {
+            System.arraycopy(shared, 0, policy, 0, shared.length);
+            this.epsilon = epsilon;
+            this.episodes = episodes;
+        }
+
+        @Override
+        public void run() {
+            for (long i = 0; i < episodes; i++) {
+                playEpisode(true);
+            }
+        }
+
+        void mergeInto(double[] shared, long[] sharedVisits) {
+            for (int i = 0; i < shared.length; i++) {
+                if (counts[i] != 0) {
+                    // Sample average up to VISIT_CAP, then a constant step so early targets wash out.
+                    long merged = sharedVisits[i] + counts[i];
+                    double weight = Math.min(1.0, (double) counts[i] / Math.min(merged, VISIT_CAP));
+                    shared[i] += weight * (sums[i] / counts[i] - shared[i]);
+                    sharedVisits[i] = merged;
+                    sums[i] = 0;
+                    counts[i] = 0;
+                }
+            }
+        }
+
+        double playEpisode(boolean learn) {
+            if (deck.size() < deck.capacity() * (1 - PENETRATION)) {
+                deck.reset();
+                runningCount = 0;
+            }
+            int bucket = counting ? bucket() : 0;
+
+            int player1 = draw();
+            int upcard = draw();
+            int player2 = draw();
+            int hole = draw();
+
+            int hard = points(player1) + points(player2);
+            boolean ace = player1 == HouseEdgeCalculator.ACE || player2 == HouseEdgeCalculator.ACE;
+            boolean playerBlackjack = ace && hard == 11;
+            boolean dealerBlackjack = (upcard == HouseEdgeCalculator.ACE && hole == HouseEdgeCalculator.TEN)
+                    || (upcard == HouseEdgeCalculator.TEN && hole == HouseEdgeCalculator.ACE);
+            if (dealerBlackjack) {
+                return playerBlackjack ? 0 : -1;
+            }
+            if (playerBlackjack) {
+                return blackjackPays;
+            }
+
+            int steps = 0;
+            while (true) {
+                boolean soft = ace && hard + 10 <= 21;
+                int total = soft ? hard + 10 : hard;
+                int s = state(bucket, soft, total, upcard) * 2;
+                int action = choose(s);
+                trail[steps++] = s + action;
+                if (action == STAY) {
+                    break;
+                }
+                int rank = draw();
+                hard += points(rank);
+                ace |= rank == HouseEdgeCalculator.ACE;
+                if (hard > 21) {
+                    break;
+                }
+            }
+
+            double reward = hard > 21 ? -1 : settle(ace && hard + 10 <= 21 ? hard + 10 : hard, upcard, hole);
+            if (learn) {
+                for (int i = 0; i < steps; i++) {
+                    int next = trail[i + 1] & ~1;
+                    double target = i == steps - 1 ? reward : Math.max(policy[next + HIT], policy[next + STAY]);
+                    sums[trail[i]] += target;
+                    counts[trail[i]]++;
+                }
+            }
+            return reward;
+        }
+
+        private double settle(int total, int upcard, int hole) {
+            int hard = points(upcard) + points(hole);
+            boolean ace = upcard == HouseEdgeCalculator.ACE || hole == HouseEdgeCalculator.ACE;
+            while (true) {
+                boolean soft = ace && hard + 10 <= 21;
+                if (!rules.dealerHits(soft ? hard + 10 : hard, soft)) {
+                    break;
+                }
+                int rank = draw();
+                hard += points(rank);
+                ace |= rank == HouseEdgeCalculator.ACE;
+            }
+            int dealer = ace && hard + 10 <= 21 ? hard + 10 : hard;
+            if (dealer > 21 || total > dealer) {
+                return 1;
+            }
+            return total == dealer ? 0 : -1;
+        }
+
+        private int choose(int s) {
+            if (epsilon > 0 && random.nextDouble() < epsilon) {
+                return random.nextInt(2);
+            }
+            return policy[s + HIT] > policy[s + STAY] ? HIT : STAY;
+        }
+
+        private int draw() {
+            int rank = HouseEdgeCalculator.rankIndex(deck.dealCard().getValue());
+            if (rank >= 1 && rank <= 5) {
+                runningCount++;
+            } else if (rank == HouseEdgeCalculator.ACE || rank == HouseEdgeCalculator.TEN) {
+                runningCount--;
+            }
+            return rank;
+        }
+
+        private int bucket() {
+            double decksLeft = Math.max(0.5, deck.size() / (double) Card.DECK_SIZE);
+            int trueCount = (int) Math.round(runningCount / decksLeft);
+            return Math.max(-MAX_TRUE_COUNT, Math.min(MAX_TRUE_COUNT, trueCount)) + MAX_TRUE_COUNT;
+        }
+
+        private int points(int rank) {
+            return HouseEdgeCalculator.points(rank);
+        }
+    }
+
+    private static final String UPCARDS = "  2  3  4  5  6  7  8  9  T  A";
+
+    private void printTable(int bucket) {
+        int[] order = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 0 };
+        System.out.println("Hard  " + UPCARDS);
+        for (int total = 17; total >= 8; total--) {
+            printRow(String.format("%4d  ", total), bucket, false, total, order);
+        }
+        System.out.println("Soft  " + UPCARDS);
+        for (int total = 20; total >= 13; total--) {
+            printRow(String.format("A,%-2d  ", total - 11), bucket, true, total, order);
+        }
+    }
+
+    private void printRow(String label, int bucket, boolean soft, int total, int[] order) {
+        StringBuilder row = new StringBuilder(label);
+        for (int upcard : order) {
+            row.append("  ").append(bestAction(bucket, soft, total, upcard) == HIT ? 'H' : 'S');
+        }
+        System.out.println(row);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Rules.Builder builder = new Rules.Builder();
+        int decks = 6;
+        long episodes = 20_000_000L;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int tasks = 0;
+        boolean counting = false;
+        long seed = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--decks":
+                    decks = Integer.parseInt(args[++i]);
+                    break;
+                case "--h17":
+                    builder.hitSoft17(true);
+                    break;
+                case "--bj":
+                    String[] payout = args[++i].split(":");
+                    builder.blackjackPays(Integer.parseInt(payout[0]), Integer.parseInt(payout[1]));
+                    break;
+                case "--episodes":
+                    episodes = Long.parseLong(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--tasks":
+                    tasks = Integer.parseInt(args[++i]);
+                    break;
+                case "--count":
+                    counting = true;
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    System.out.println("Unknown option: " + args[i]);
+                    return;
+            }
+        }
+
+        StrategyTrainer trainer = new StrategyTrainer(builder.build(), decks, counting);
+        long started = System.nanoTime();
+        trainer.train(episodes, 50_000, tasks > 0 ? tasks : threads, threads, seed);
+        long elapsed = System.nanoTime() - started;
+
+        System.out.println("Rules:       " + trainer.rules);
+        System.out.println("Decks:       " + decks);
+        System.out.printf("Trained on:  %,d hands in %.2f s (%d threads)%n", episodes, elapsed / 1e9, threads);
+        System.out.printf("Greedy EV:   %.4f%% per hand%n", 100 * trainer.evaluate(2_000_000L, seed ^ 0x5DEECE66DL));
+        trainer.printTable(counting ? MAX_TRUE_COUNT : 0);
+    }
+}
@@ -0,0 +1,71 @@
+package com.blackjack;
+
+import java.util.SplittableRandom;
+
+/**
+ * A scripted player for load testing: bets uniformly between {@code minBet}
+ * and {@code maxBet} and hits while the hand is below {@code standOn}.
+ * With a side bet set it also stakes that amount on both side bets every
+ * round it can afford them.
+ */
+public class SyntheticPlayer implements DecisionSource {
+    private String name;
+    private int minBet;
+    private int maxBet;
+    private int standOn;
+    private int sideBet;
+    private SplittableRandom random;
+
+    public SyntheticPlayer(String name, int minBet, int maxBet, int standOn, long seed) {
+        if (minBet > maxBet) {
+            throw new IllegalArgumentException("minBet must not exceed maxBet");
+        }
+        this.name = name;
+        this.minBet = minBet;
+        this.maxBet = maxBet;
+        this.standOn = standOn;
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public String playerName() {
+        return name;
+    }
+
+    @Override
+    public int nextBet(int earnings, int betMin) {
+        int low = Math.max(minBet, betMin);
+        int high = Math.min(maxBet, earnings);
+        if (high <= low) {
+            return low;
+        }
+        return low + random.nextInt(high - low + 1);
+    }
+
+    public void setSideBet(int sideBet) {
+        this.sideBet = sideBet;
+    }
+
+    @Override
+    public int perfectPairsBet(int earnings) {
+        return sideBet <= earnings ? sideBet : 0;
+    }
+
+    @Override
+    public int twentyOnePlusThreeBet(int earnings) {
+        return sideBet <= earnings ? sideBet : 0;
+    }
+
+    @Override
+    public Action decide(Player player, Hand hand, Card houseUpcard, int allowedActions) {
+        if (hand.getValue() < standOn && Action.HIT.isAllowed(allowedActions)) {
+            return Action.HIT;
+        }
+        return Action.STAY;
+    }
+
+    @Override
+    public boolean playAgain(int earnings) {
+        return true;
+    }
+}
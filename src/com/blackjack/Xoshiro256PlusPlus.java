@@ -0,0 +1,67 @@
+package com.blackjack;
+
+/** xoshiro256++ (Blackman and Vigna). */
+public class Xoshiro256PlusPlus implements RandomSource {
+    private static final long[] JUMP = { 0x180ec6d33cfd0abaL, 0xd5a61266f0c9392cL, 0xa9582618e03fc9aaL,
+            0x39abdc4529b1661cL };
+
+    private long s0;
+    private long s1;
+    private long s2;
+    private long s3;
+
+    public Xoshiro256PlusPlus(long seed) {
+        s0 = RandomAlgorithm.mix64(seed += RandomAlgorithm.GOLDEN_GAMMA);
+        s1 = RandomAlgorithm.mix64(seed += RandomAlgorithm.GOLDEN_GAMMA);
+        s2 = RandomAlgorithm.mix64(seed += RandomAlgorithm.GOLDEN_GAMMA);
+        s3 = RandomAlgorithm.mix64(seed + RandomAlgorithm.GOLDEN_GAMMA);
+    }
+
+    private Xoshiro256PlusPlus(long s0, long s1, long s2, long s3) {
+        this.s0 = s0;
+        this.s1 = s1;
+        this.s2 = s2;
+        this.s3 = s3;
+    }
+
+    /**
+     * Returns a generator at this one's current position and advances this
+     * one by 2^128 steps, so repeated calls hand out non-overlapping streams.
+     */
+    public Xoshiro256PlusPlus split() {
+        Xoshiro256PlusPlus copy = new Xoshiro256PlusPlus(s0, s1, s2, s3);
+        long t0 = 0;
+        long t1 = 0;
+        long t2 = 0;
+        long t3 = 0;
+        for (long jump : JUMP) {
+            for (int b = 0; b < 64; b++) {
+                if ((jump & (1L << b)) != 0) {
+                    t0 ^= s0;
+                    t1 ^= s1;
+                    t2 ^= s2;
+                    t3 ^= s3;
+                }
+                nextLong();
+            }
+        }
+        s0 = t0;
+        s1 = t1;
+        s2 = t2;
+        s3 = t3;
+        return copy;
+    }
+
+    @Override
+    public long nextLong() {
+        long result = Long.rotateLeft(s0 + s3, 23) + s0;
+        long t = s1 << 17;
+        s2 ^= s0;
+        s3 ^= s1;
+        s1 ^= s2;
+        s0 ^= s3;
+        s2 ^= t;
+        s3 = Long.rotateLeft(s3, 45);
+        return result;
+    }
+}
@@ -0,0 +1,14 @@
+package com.blackjack;
+
+/** Runs every test; a failed check ends the run with its AssertionError. */
+public class AllTests {
+
+    public static void main(String[] args) throws Exception {
+        RulesTest.main(args);
+        HandHistoryCodecTest.main(args);
+        RecoveryTest.main(args);
+        PlayerRollupsTest.main(args);
+        DeckTest.main(args);
+        System.out.println(Check.passed() + " checks passed");
+    }
+}
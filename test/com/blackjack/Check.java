@@ -0,0 +1,88 @@
+package com.blackjack;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The few assertions the tests need. There is no test framework on the
+ * class path: every test is a class with a main method that throws on the
+ * first failed check, and {@link AllTests} runs them all.
+ *
+ * <pre>
+ * javac -d /tmp/blackjack-test src/com/blackjack/*.java test/com/blackjack/*.java
+ * java -cp /tmp/blackjack-test com.blackjack.AllTests
+ * </pre>
+ */
+final class Check {
+
+    private static int passed;
+
+    private Check() {
+    }
+
+    static void equal(Object expected, Object actual, String what) {
+        if (!Objects.deepEquals(expected, actual)) {
+            throw new AssertionError(what + ": expected " + describe(expected) + " but was " + describe(actual));
+        }
+        passed++;
+    }
+
+    static void isTrue(boolean condition, String what) {
+        if (!condition) {
+            throw new AssertionError(what);
+        }
+        passed++;
+    }
+
+    /** A check body that may throw anything. */
+    interface Body {
+        void run() throws Exception;
+    }
+
+    static void throwsException(Class<? extends Exception> type, Body action, String what) {
+        try {
+            action.run();
+        } catch (Exception e) {
+            if (type.isInstance(e)) {
+                passed++;
+                return;
+            }
+            throw new AssertionError(what + ": threw " + e, e);
+        }
+        throw new AssertionError(what + ": expected " + type.getSimpleName());
+    }
+
+    static int passed() {
+        return passed;
+    }
+
+    static File tempDirectory(String prefix) throws IOException {
+        return Files.createTempDirectory(prefix).toFile();
+    }
+
+    static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static String describe(Object value) {
+        if (value instanceof Object[]) {
+            return Arrays.deepToString((Object[]) value);
+        }
+        if (value instanceof int[]) {
+            return Arrays.toString((int[]) value);
+        }
+        if (value instanceof byte[]) {
+            return Arrays.toString((byte[]) value);
+        }
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,136 @@
+package com.blackjack;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Checks every shuffle mode and random algorithm with seeded sources, so each run deals the same shoes. */
+public class DeckTest {
+
+    private static final int DECKS = 2;
+
+    public static void main(String[] args) {
+        for (RandomAlgorithm algorithm : RandomAlgorithm.values()) {
+            for (ShuffleMode mode : ShuffleMode.values()) {
+                String what = algorithm + " " + mode;
+                sameSeedDealsTheSameShoe(algorithm, mode, what);
+                dealsEveryCardOnce(algorithm, mode, what);
+                resetRefillsTheShoe(algorithm, mode, what);
+                returnedCardsAreDealtAgain(algorithm, mode, what);
+                firstCardIsUniform(algorithm, mode, what);
+                returnedCardIsUniform(algorithm, mode, what);
+            }
+        }
+        streamsAreRepeatable();
+        System.out.println("DeckTest passed");
+    }
+
+    private static void sameSeedDealsTheSameShoe(RandomAlgorithm algorithm, ShuffleMode mode, String what) {
+        List<Card> first = dealAll(new Deck(DECKS, algorithm.create(42), mode));
+        Check.equal(first, dealAll(new Deck(DECKS, algorithm.create(42), mode)), what + ": same seed");
+        Check.isTrue(!first.equals(dealAll(new Deck(DECKS, algorithm.create(43), mode))), what + ": other seed");
+    }
+
+    private static void dealsEveryCardOnce(RandomAlgorithm algorithm, ShuffleMode mode, String what) {
+        Deck deck = new Deck(DECKS, algorithm.create(7), mode);
+        Check.equal(DECKS * Card.DECK_SIZE, deck.capacity(), what + ": capacity");
+        int[] counts = new int[Card.DECK_SIZE];
+        for (int dealt = 1; dealt <= deck.capacity(); dealt++) {
+            counts[deck.dealCard().getCode()]++;
+            Check.equal(deck.capacity() - dealt, deck.size(), what + ": size after " + dealt + " cards");
+        }
+        for (int code = 0; code < Card.DECK_SIZE; code++) {
+            Check.equal(DECKS, counts[code], what + ": copies of " + Card.of(code));
+        }
+        Check.throwsException(IllegalStateException.class, deck::dealCard, what + ": dealing from an empty shoe");
+    }
+
+    private static void resetRefillsTheShoe(RandomAlgorithm algorithm, ShuffleMode mode, String what) {
+        Deck deck = new Deck(DECKS, algorithm.create(11), mode);
+        List<Card> firstShoe = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            firstShoe.add(deck.dealCard());
+        }
+        deck.reset();
+        Check.equal(deck.capacity(), deck.size(), what + ": size after reset");
+        List<Card> secondShoe = dealAll(deck);
+        Check.equal(deck.capacity(), secondShoe.size(), what + ": cards after reset");
+        Check.isTrue(!firstShoe.equals(secondShoe.subList(0, 10)), what + ": a reset shoe is shuffled again");
+    }
+
+    private static void returnedCardsAreDealtAgain(RandomAlgorithm algorithm, ShuffleMode mode, String what) {
+        Deck deck = new Deck(DECKS, algorithm.create(13), mode);
+        Check.throwsException(IllegalStateException.class, () -> deck.returnCard(Card.of(0)),
+                what + ": returning a card to a full shoe");
+        List<Card> round = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            round.add(deck.dealCard());
+        }
+        deck.returnCards(round);
+        Check.equal(deck.capacity(), deck.size(), what + ": size after returning a round");
+        int[] counts = new int[Card.DECK_SIZE];
+        for (Card card : dealAll(deck)) {
+            counts[card.getCode()]++;
+        }
+        for (int code = 0; code < Card.DECK_SIZE; code++) {
+            Check.equal(DECKS, counts[code], what + ": copies of " + Card.of(code) + " after a return");
+        }
+    }
+
+    /** Every code should be dealt first about equally often; the bounds are over seven standard deviations. */
+    private static void firstCardIsUniform(RandomAlgorithm algorithm, ShuffleMode mode, String what) {
+        int shoes = 52_000;
+        int[] counts = new int[Card.DECK_SIZE];
+        RandomSource random = algorithm.create(17);
+        Deck deck = new Deck(DECKS, random, mode);
+        for (int i = 0; i < shoes; i++) {
+            deck.reset();
+            counts[deck.dealCard().getCode()]++;
+        }
+        for (int code = 0; code < Card.DECK_SIZE; code++) {
+            Check.isTrue(counts[code] > 780 && counts[code] < 1220,
+                    what + ": " + Card.of(code) + " dealt first " + counts[code] + " times in " + shoes);
+        }
+    }
+
+    /**
+     * A card put back into a full shoe should be as likely as any other to be
+     * dealt next; with two decks, a card matching its code comes next 1 time in 52.
+     */
+    private static void returnedCardIsUniform(RandomAlgorithm algorithm, ShuffleMode mode, String what) {
+        int trials = 104_000;
+        int matches = 0;
+        Deck deck = new Deck(DECKS, algorithm.create(19), mode);
+        for (int i = 0; i < trials; i++) {
+            Card returned = deck.dealCard();
+            deck.returnCard(returned);
+            Card next = deck.dealCard();
+            if (next == returned) {
+                matches++;
+            }
+            deck.returnCard(next);
+        }
+        Check.isTrue(matches > 1700 && matches < 2300,
+                what + ": a returned card's code came next " + matches + " times in " + trials);
+    }
+
+    private static void streamsAreRepeatable() {
+        for (RandomAlgorithm algorithm : RandomAlgorithm.values()) {
+            RandomStreams streams = new RandomStreams(algorithm, 99);
+            List<Card> table3 = dealAll(streams.deck(3, DECKS, ShuffleMode.LAZY));
+            Check.equal(table3, dealAll(new RandomStreams(algorithm, 99).deck(3, DECKS, ShuffleMode.LAZY)),
+                    algorithm + ": a table's stream depends only on the seed and index");
+            Check.equal(table3, dealAll(new Deck(DECKS, streams.stream(3), ShuffleMode.LAZY)),
+                    algorithm + ": deck(index) draws from stream(index)");
+            Check.isTrue(!table3.equals(dealAll(streams.deck(4, DECKS, ShuffleMode.LAZY))),
+                    algorithm + ": tables draw from different streams");
+        }
+    }
+
+    private static List<Card> dealAll(Deck deck) {
+        List<Card> cards = new ArrayList<>();
+        while (deck.size() > 0) {
+            cards.add(deck.dealCard());
+        }
+        return cards;
+    }
+}
@@ -0,0 +1,208 @@
+package com.blackjack;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Encodes rounds of every shape and checks that they decode to the same results. */
+public class HandHistoryCodecTest {
+
+    private static final byte[] NONE = new byte[0];
+
+    public static void main(String[] args) throws IOException {
+        roundTrips();
+        rejectsTooManyHandsWithoutCorruptingTheStream();
+        rejectsOtherStreams();
+        System.out.println("HandHistoryCodecTest passed");
+    }
+
+    private static void roundTrips() throws IOException {
+        List<RoundResult> rounds = new ArrayList<>();
+        // A plain win, then a blackjack at a higher bet
+        rounds.add(round("Ann", 1_700_000_000_000L, 90, false, 0, 0,
+                codes(Card.Value.TEN, Card.Value.EIGHT), actions(Action.STAY),
+                hand(Outcome.WIN, 10, Card.Value.TEN, Card.Value.NINE)));
+        rounds.add(round("Ann", 1_700_000_004_500L, 120, false, 0, 0,
+                codes(Card.Value.NINE, Card.Value.SEVEN), NONE,
+                hand(Outcome.BLACKJACK, 20, Card.Value.ACE, Card.Value.KING)));
+        // Split twice with the middle hand doubled; timestamps may go backwards between tables
+        rounds.add(round("Bob", 1_699_999_999_000L, 40, false, 0, 0,
+                codes(Card.Value.SIX, Card.Value.TEN, Card.Value.FIVE), actions(Action.SPLIT, Action.SPLIT,
+                        Action.HIT, Action.STAY, Action.DOUBLE, Action.STAY),
+                hand(Outcome.WIN, 10, Card.Value.EIGHT, Card.Value.THREE, Card.Value.NINE),
+                hand(Outcome.LOSS, 20, Card.Value.EIGHT, Card.Value.TWO, Card.Value.FIVE),
+                hand(Outcome.PUSH, 10, Card.Value.EIGHT, Card.Value.KING)));
+        // Insured surrender with side bets that won
+        rounds.add(round("Bob", 1_700_000_010_000L, 75, true, 10, 50,
+                codes(Card.Value.ACE, Card.Value.NINE), actions(Action.SURRENDER),
+                hand(Outcome.SURRENDER, 10, Card.Value.TEN, Card.Value.SIX)));
+        // Insurance paying against a dealer blackjack, side bets lost
+        rounds.add(round("Ann", 1_700_000_020_000L, 60, true, 20, -20,
+                codes(Card.Value.ACE, Card.Value.QUEEN), NONE,
+                hand(Outcome.LOSS, 30, Card.Value.TEN, Card.Value.SEVEN)));
+        // The most hands a round can hold, side bets on
+        List<Object[]> hands = new ArrayList<>();
+        byte[] splits = new byte[Rules.MAX_HANDS * 2 - 1];
+        for (int h = 0; h < Rules.MAX_HANDS; h++) {
+            hands.add(hand(h % 2 == 0 ? Outcome.WIN : Outcome.LOSS, h == 3 ? 50 : 25, Card.Value.SEVEN,
+                    Card.Value.values()[h]));
+            splits[h] = (byte) Action.SPLIT.ordinal();
+        }
+        for (int i = Rules.MAX_HANDS; i < splits.length; i++) {
+            splits[i] = (byte) Action.STAY.ordinal();
+        }
+        rounds.add(round("Zo\u00eb", 1_700_000_030_000L, 500, false, 10, 0,
+                codes(Card.Value.TEN, Card.Value.SIX, Card.Value.TEN), splits,
+                hands.toArray(new Object[0][])));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (HandHistoryCodec.Encoder encoder = new HandHistoryCodec.Encoder(bytes)) {
+            for (RoundResult round : rounds) {
+                encoder.encode(round);
+            }
+        }
+        try (HandHistoryCodec.Decoder decoder =
+                new HandHistoryCodec.Decoder(new ByteArrayInputStream(bytes.toByteArray()))) {
+            for (int i = 0; i < rounds.size(); i++) {
+                assertSame(rounds.get(i), decoder.next(), "round " + i);
+            }
+            Check.equal(null, decoder.next(), "end of stream");
+        }
+    }
+
+    private static void rejectsTooManyHandsWithoutCorruptingTheStream() throws IOException {
+        Object[][] hands = new Object[Rules.MAX_HANDS + 1][];
+        for (int h = 0; h < hands.length; h++) {
+            hands[h] = hand(Outcome.PUSH, 10, Card.Value.NINE, Card.Value.NINE);
+        }
+        RoundResult tooMany = round("Ann", 1_700_000_000_000L, 100, false, 0, 0,
+                codes(Card.Value.TEN, Card.Value.EIGHT), NONE, hands);
+        RoundResult next = round("Ann", 1_700_000_001_000L, 110, false, 0, 0,
+                codes(Card.Value.TEN, Card.Value.SEVEN), actions(Action.STAY),
+                hand(Outcome.WIN, 10, Card.Value.TEN, Card.Value.EIGHT));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (HandHistoryCodec.Encoder encoder = new HandHistoryCodec.Encoder(bytes)) {
+            Check.throwsException(IllegalArgumentException.class, () -> encoder.encode(tooMany),
+                    hands.length + " hands in one round");
+            encoder.encode(next);
+        }
+        try (HandHistoryCodec.Decoder decoder =
+                new HandHistoryCodec.Decoder(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertSame(next, decoder.next(), "round after a rejected one");
+            Check.equal(null, decoder.next(), "end of stream");
+        }
+    }
+
+    private static void rejectsOtherStreams() {
+        Check.throwsException(IOException.class,
+                () -> new HandHistoryCodec.Decoder(new ByteArrayInputStream(new byte[] { 'B', 'J', 'X', '9' })),
+                "unknown magic");
+    }
+
+    private static void assertSame(RoundResult expected, RoundResult actual, String what) {
+        Check.isTrue(actual != null, what + " decoded");
+        Check.equal(expected.getPlayerName(), actual.getPlayerName(), what + " player");
+        Check.equal(expected.getTimestamp(), actual.getTimestamp(), what + " timestamp");
+        Check.equal(expected.getWagered(), actual.getWagered(), what + " wagered");
+        Check.equal(expected.getNet(), actual.getNet(), what + " net");
+        Check.equal(expected.getEarnings(), actual.getEarnings(), what + " earnings");
+        Check.equal(expected.getOutcomes(), actual.getOutcomes(), what + " outcomes");
+        Check.equal(expected.getHandBets(), actual.getHandBets(), what + " hand bets");
+        Check.equal(expected.getHandNets(), actual.getHandNets(), what + " hand nets");
+        Check.equal(expected.getHandTotals(), actual.getHandTotals(), what + " hand totals");
+        Check.equal(expected.getHandCards(), actual.getHandCards(), what + " hand cards");
+        Check.equal(expected.getDealerCards(), actual.getDealerCards(), what + " dealer cards");
+        Check.equal(expected.getDealerTotal(), actual.getDealerTotal(), what + " dealer total");
+        Check.equal(expected.getActions(), actual.getActions(), what + " actions");
+        Check.equal(expected.isInsured(), actual.isInsured(), what + " insured");
+        Check.equal(expected.getSideWagered(), actual.getSideWagered(), what + " side wagered");
+        Check.equal(expected.getSideNet(), actual.getSideNet(), what + " side net");
+    }
+
+    /** One hand: outcome, bet and cards. */
+    private static Object[] hand(Outcome outcome, int bet, Card.Value... values) {
+        return new Object[] { outcome, bet, codes(values) };
+    }
+
+    /**
+     * A round settled the way Game settles it, so every derived field agrees:
+     * 3:2 blackjacks, half-back surrenders and insurance of half the base bet.
+     */
+    private static RoundResult round(String name, long timestamp, int earnings, boolean insured, int sideWagered,
+            int sideNet, byte[] dealerCards, byte[] actions, Object[]... hands) {
+        Outcome[] outcomes = new Outcome[hands.length];
+        int[] bets = new int[hands.length];
+        int[] nets = new int[hands.length];
+        int[] totals = new int[hands.length];
+        byte[][] cards = new byte[hands.length][];
+        int base = Integer.MAX_VALUE;
+        for (int h = 0; h < hands.length; h++) {
+            bets[h] = (Integer) hands[h][1];
+            base = Math.min(base, bets[h]);
+        }
+        int wagered = sideWagered;
+        int net = sideNet;
+        for (int h = 0; h < hands.length; h++) {
+            outcomes[h] = (Outcome) hands[h][0];
+            cards[h] = (byte[]) hands[h][2];
+            totals[h] = total(cards[h]);
+            switch (outcomes[h]) {
+                case WIN:
+                    nets[h] = bets[h];
+                    break;
+                case BLACKJACK:
+                    nets[h] = bets[h] * 3 / 2;
+                    break;
+                case LOSS:
+                    nets[h] = -bets[h];
+                    break;
+                case SURRENDER:
+                    nets[h] = bets[h] / 2 - bets[h];
+                    break;
+                default:
+                    nets[h] = 0;
+            }
+            wagered += bets[h];
+            net += nets[h];
+        }
+        int dealerTotal = total(dealerCards);
+        if (insured) {
+            int insurance = base / 2;
+            wagered += insurance;
+            net += dealerCards.length == 2 && dealerTotal == 21 ? 2 * insurance : -insurance;
+        }
+        RoundResult result = new RoundResult(name, timestamp, wagered, net, earnings, outcomes);
+        result.setHandDetail(bets, nets, totals, cards, dealerCards, dealerTotal);
+        result.setActions(actions, insured);
+        result.setSideBets(sideWagered, sideNet);
+        return result;
+    }
+
+    private static byte[] codes(Card.Value... values) {
+        byte[] codes = new byte[values.length];
+        Card.Suit[] suits = Card.Suit.values();
+        for (int i = 0; i < values.length; i++) {
+            codes[i] = Card.of(suits[i % suits.length], values[i]).getCode();
+        }
+        return codes;
+    }
+
+    private static byte[] actions(Action... actions) {
+        byte[] ordinals = new byte[actions.length];
+        for (int i = 0; i < actions.length; i++) {
+            ordinals[i] = (byte) actions[i].ordinal();
+        }
+        return ordinals;
+    }
+
+    private static int total(byte[] codes) {
+        Hand hand = new Hand();
+        for (byte code : codes) {
+            hand.addCard(Card.of(code));
+        }
+        return hand.getValue();
+    }
+}
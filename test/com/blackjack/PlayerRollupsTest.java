@@ -0,0 +1,80 @@
+package com.blackjack;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Checks that rollups survive compaction, reopening and a crash at any point
+ * of a compaction without losing or double-counting a round. A rollup that is
+ * dropped without {@link PlayerRollups#close()} stands in for a crashed
+ * process: every delta is flushed as it is written.
+ */
+public class PlayerRollupsTest {
+
+    public static void main(String[] args) throws IOException {
+        File directory = Check.tempDirectory("rollups-test");
+        try {
+            compactsAutomatically(new File(directory, "auto"));
+            crashBeforeTruncatingTheLog(new File(directory, "crash"));
+        } finally {
+            Check.delete(directory);
+        }
+        System.out.println("PlayerRollupsTest passed");
+    }
+
+    private static void compactsAutomatically(File directory) throws IOException {
+        PlayerRollups rollups = new PlayerRollups(directory, 3);
+        for (int i = 0; i < 7; i++) {
+            rollups.roundSettled(round(i % 2 == 0 ? "Ann" : "Bob", 1000 + i, i % 3 == 0 ? Outcome.WIN : Outcome.LOSS));
+        }
+        // Two compactions happened; the seventh round is only in the delta log
+        expect(new PlayerRollups(directory, 3), "Ann", 4, 2, 2, 0, 1006, "after automatic compaction");
+        expect(new PlayerRollups(directory, 3), "Bob", 3, 1, 2, 0, 1005, "after automatic compaction");
+
+        PlayerRollups reopened = new PlayerRollups(directory, 3);
+        reopened.roundSettled(round("Ann", 2000, Outcome.PUSH));
+        reopened.close();
+        PlayerRollups closed = new PlayerRollups(directory, 3);
+        expect(closed, "Ann", 5, 2, 2, 1, 2000, "after close");
+        Check.equal(2, closed.size(), "players");
+        Check.equal(null, closed.get("Cy"), "a player who never played");
+        Check.equal((long) 12, new File(directory, "player_rollups.log").length(), "log after close holds its header");
+    }
+
+    private static void crashBeforeTruncatingTheLog(File directory) throws IOException {
+        File log = new File(directory, "player_rollups.log");
+        File saved = new File(directory, "saved.log");
+        PlayerRollups rollups = new PlayerRollups(directory, 1000);
+        for (int i = 0; i < 4; i++) {
+            rollups.roundSettled(round("Ann", 1000 + i, Outcome.WIN));
+        }
+        Files.copy(log.toPath(), saved.toPath());
+        rollups.compact();
+        // The new snapshot is in place but the crash left the previous log behind
+        Files.copy(saved.toPath(), log.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        expect(new PlayerRollups(directory, 1000), "Ann", 4, 4, 0, 0, 1003, "stale log skipped");
+
+        PlayerRollups restarted = new PlayerRollups(directory, 1000);
+        restarted.roundSettled(round("Ann", 1004, Outcome.LOSS));
+        expect(new PlayerRollups(directory, 1000), "Ann", 5, 4, 1, 0, 1004, "log restarted after a stale one");
+    }
+
+    private static void expect(PlayerRollups rollups, String name, long rounds, long wins, long losses,
+            long pushes, long lastPlayed, String what) {
+        PlayerRollups.Rollup rollup = rollups.get(name);
+        Check.isTrue(rollup != null, what + ": " + name + " has a rollup");
+        Check.equal(rounds, rollup.getRounds(), what + ": " + name + "'s rounds");
+        Check.equal(wins, rollup.getWins(), what + ": " + name + "'s wins");
+        Check.equal(losses, rollup.getLosses(), what + ": " + name + "'s losses");
+        Check.equal(pushes, rollup.getPushes(), what + ": " + name + "'s pushes");
+        Check.equal(10 * (wins - losses), rollup.getNet(), what + ": " + name + "'s net");
+        Check.equal(lastPlayed, rollup.getLastPlayed(), what + ": " + name + " last played");
+    }
+
+    private static RoundResult round(String name, long timestamp, Outcome outcome) {
+        int net = outcome == Outcome.WIN ? 10 : outcome == Outcome.LOSS ? -10 : 0;
+        return new RoundResult(name, timestamp, 10, net, 100 + net, new Outcome[] { outcome });
+    }
+}
@@ -0,0 +1,144 @@
+package com.blackjack;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Kills a table process part way through its rounds and checks what the
+ * next one to open the journal and account store finds: applied rounds are
+ * not replayed, settled rounds the store never saw are replayed once, open
+ * bets are rolled back and torn records are ignored.
+ */
+public class RecoveryTest {
+
+    private static final String LONG_NAME = "Bartholomew the High Roller";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && args[0].equals("crash")) {
+            crash(new File(args[1]));
+            return;
+        }
+        File directory = Check.tempDirectory("recovery-test");
+        try {
+            recoversAfterProcessDies(directory);
+            ignoresTornRecords(new File(directory, "torn.dat"));
+            journalsBelongToOneTable(new File(directory, "tables"));
+        } finally {
+            Check.delete(directory);
+        }
+        System.out.println("RecoveryTest passed");
+    }
+
+    /** Runs in a child process, which halts without closing anything. */
+    private static void crash(File directory) throws Exception {
+        RoundJournal journal = new RoundJournal(new File(directory, "journal.dat"), 64, RoundJournal.Durability.NONE);
+        AccountStore accounts = new AccountStore(new File(directory, "accounts"));
+        for (String name : new String[] { "Ann", "Cy", "Di", "Eve", LONG_NAME }) {
+            accounts.create(name, "", 100);
+        }
+
+        // Settled and applied to the store
+        long round = journal.beginRound();
+        journal.betReserved(round, 0, "Ann", 100, 10);
+        journal.settled(round, 0, "Ann", 110, 10);
+        accounts.adjustBalance("Ann", 10);
+        journal.applied(round, 0, 110);
+        journal.roundComplete();
+
+        // Cy and the long name settled but the store never saw it; Di never settled
+        round = journal.beginRound();
+        journal.betReserved(round, 0, "Cy", 100, 20);
+        journal.betReserved(round, 1, "Di", 100, 10);
+        journal.betReserved(round, 2, LONG_NAME, 100, 10);
+        journal.settled(round, 0, "Cy", 120, 20);
+        journal.settled(round, 2, LONG_NAME, 90, -10);
+
+        // Die while another table is rewriting an account
+        Thread writer = new Thread(() -> {
+            try {
+                while (true) {
+                    accounts.adjustBalance("Eve", 1);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        writer.start();
+        Thread.sleep(200);
+        Runtime.getRuntime().halt(0);
+    }
+
+    private static void recoversAfterProcessDies(File directory) throws Exception {
+        Process child = new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java").getPath(), "-cp",
+                System.getProperty("java.class.path"), RecoveryTest.class.getName(), "crash", directory.getPath())
+                .inheritIO().start();
+        Check.equal(0, child.waitFor(), "crashing table's exit status");
+
+        File journalFile = new File(directory, "journal.dat");
+        try (AccountStore accounts = new AccountStore(new File(directory, "accounts"))) {
+            int eve = accounts.load("Eve").getBalance();
+            Check.isTrue(eve >= 100, "account rewritten during the crash is intact: $" + eve);
+            Check.equal(eve + 1, accounts.adjustBalance("Eve", 1).getBalance(), "account updates after the crash");
+
+            try (RoundJournal journal = new RoundJournal(journalFile, RoundJournal.Durability.ROUND)) {
+                Check.equal(1, journal.getRolledBack(), "open bets rolled back");
+                Check.equal(0, journal.unappliedDelta("Ann"), "applied round is not replayed");
+                Check.equal(20, journal.unappliedDelta("Cy"), "unapplied win");
+                Check.equal(0, journal.unappliedDelta("Di"), "rolled back bet");
+                Check.equal(-10, journal.unappliedDelta(LONG_NAME), "unapplied loss under a truncated name");
+                Check.isTrue(journal.beginRound() >= 2, "round ids continue after the crash");
+
+                // What Game does when each player sits down again
+                for (String name : new String[] { "Ann", "Cy", "Di", LONG_NAME }) {
+                    int delta = journal.unappliedDelta(name);
+                    if (delta != 0) {
+                        accounts.adjustBalance(name, delta);
+                    }
+                    journal.markApplied(name);
+                }
+            }
+            try (RoundJournal journal = new RoundJournal(journalFile, RoundJournal.Durability.ROUND)) {
+                Check.equal(0, journal.getRolledBack(), "a rollback is recorded once");
+                Check.equal(0, journal.unappliedDelta("Cy"), "a replayed round is not replayed again");
+                Check.equal(0, journal.unappliedDelta(LONG_NAME), "a replayed loss is not replayed again");
+            }
+            Check.equal(110, accounts.load("Ann").getBalance(), "Ann's balance");
+            Check.equal(120, accounts.load("Cy").getBalance(), "Cy's balance");
+            Check.equal(100, accounts.load("Di").getBalance(), "Di's balance");
+            Check.equal(90, accounts.load(LONG_NAME).getBalance(), "long name's balance");
+        }
+    }
+
+    private static void ignoresTornRecords(File file) throws IOException {
+        try (RoundJournal journal = new RoundJournal(file, 8, RoundJournal.Durability.ACTION)) {
+            long round = journal.beginRound();
+            journal.betReserved(round, 0, "Fay", 100, 10);
+            journal.settled(round, 0, "Fay", 110, 10);
+        }
+        // Tear the settlement: its checksum no longer matches
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(64 + 32);
+            raw.writeInt(0x7fffffff);
+        }
+        try (RoundJournal journal = new RoundJournal(file, RoundJournal.Durability.ACTION)) {
+            Check.equal(0, journal.unappliedDelta("Fay"), "torn settlement ignored");
+            Check.equal(1, journal.getRolledBack(), "its bet rolled back instead");
+        }
+    }
+
+    private static void journalsBelongToOneTable(File directory) throws IOException {
+        try (RoundJournal first = RoundJournal.claim(directory, RoundJournal.Durability.NONE);
+                RoundJournal second = RoundJournal.claim(directory, RoundJournal.Durability.NONE)) {
+            Check.isTrue(first != second && new File(directory, "journal-1.dat").exists(),
+                    "second table claims its own journal");
+            Check.throwsException(IOException.class,
+                    () -> new RoundJournal(new File(directory, "journal-0.dat"), RoundJournal.Durability.NONE),
+                    "opening a held journal");
+        }
+        try (RoundJournal reopened = new RoundJournal(new File(directory, "journal-0.dat"),
+                RoundJournal.Durability.NONE)) {
+            Check.equal(0, reopened.getRolledBack(), "a released journal reopens");
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.blackjack;
+
+/**
+ * Checks the compiled lookup tables against the rules written out as
+ * branches: the original game's dealer and hit/stay logic for the standard
+ * table, and one branch per action for every combination of options.
+ */
+public class RulesTest {
+
+    private static final int VALUES = 32;
+
+    public static void main(String[] args) {
+        standardTableMatchesBaseline();
+        everyRulesetMatchesBranches();
+        handLookupsMatchFlags();
+        payouts();
+        builderRejectsBadLimits();
+        System.out.println("RulesTest passed");
+    }
+
+    /** The game before rules existed: the dealer hits below 17 and the player may hit or stay below 21. */
+    private static void standardTableMatchesBaseline() {
+        Rules rules = Rules.standard();
+        for (int value = 2; value < VALUES; value++) {
+            Check.equal(value < 17, rules.dealerHits(value, false), "standard dealer, hard " + value);
+            Check.equal(value < 17, rules.dealerHits(value, true), "standard dealer, soft " + value);
+            int allowed = rules.allowedActions(value, false, false, false, false, false);
+            Check.equal(value < 21, Action.HIT.isAllowed(allowed), "standard hit on " + value);
+            Check.isTrue(Action.STAY.isAllowed(allowed), "standard stay on " + value);
+        }
+    }
+
+    private static void everyRulesetMatchesBranches() {
+        boolean[] bools = { false, true };
+        for (boolean hitSoft17 : bools) {
+            for (boolean das : bools) {
+                for (boolean resplitAces : bools) {
+                    for (boolean surrender : bools) {
+                        for (Rules.DoubleOn doubleOn : Rules.DoubleOn.values()) {
+                            for (int standsOn = Rules.DEALER_MINIMUM; standsOn <= 18; standsOn++) {
+                                Rules rules = new Rules.Builder().hitSoft17(hitSoft17).doubleAfterSplit(das)
+                                        .resplitAces(resplitAces).surrender(surrender).doubleOn(doubleOn)
+                                        .dealerStandsOn(standsOn).build();
+                                checkDealer(rules);
+                                checkActions(rules);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void checkDealer(Rules rules) {
+        for (int value = 2; value < VALUES + 4; value++) {
+            boolean hard = value < rules.getDealerStandsOn();
+            boolean soft = hard || (rules.isHitSoft17() && value == rules.getDealerStandsOn());
+            Check.equal(hard, rules.dealerHits(value, false), rules + ": dealer on hard " + value);
+            Check.equal(soft, rules.dealerHits(value, true), rules + ": dealer on soft " + value);
+        }
+    }
+
+    private static void checkActions(Rules rules) {
+        for (int flags = 0; flags < 32; flags++) {
+            boolean firstTwo = (flags & 1) != 0;
+            boolean pair = (flags & 2) != 0;
+            boolean splitHand = (flags & 4) != 0;
+            boolean splitAces = (flags & 8) != 0;
+            boolean canSplit = (flags & 16) != 0;
+            for (int value = 2; value < VALUES + 4; value++) {
+                int allowed = rules.allowedActions(value, firstTwo, pair, splitHand, splitAces, canSplit);
+                String what = rules + ": value " + value + " flags " + flags + " ";
+                Check.equal(expected(rules, Action.HIT, value, firstTwo, pair, splitHand, splitAces, canSplit),
+                        Action.HIT.isAllowed(allowed), what + "hit");
+                Check.isTrue(Action.STAY.isAllowed(allowed), what + "stay");
+                Check.equal(expected(rules, Action.DOUBLE, value, firstTwo, pair, splitHand, splitAces, canSplit),
+                        Action.DOUBLE.isAllowed(allowed), what + "double");
+                Check.equal(expected(rules, Action.SPLIT, value, firstTwo, pair, splitHand, splitAces, canSplit),
+                        Action.SPLIT.isAllowed(allowed), what + "split");
+                Check.equal(
+                        expected(rules, Action.SURRENDER, value, firstTwo, pair, splitHand, splitAces, canSplit),
+                        Action.SURRENDER.isAllowed(allowed), what + "surrender");
+            }
+        }
+    }
+
+    private static boolean expected(Rules rules, Action action, int value, boolean firstTwo, boolean pair,
+            boolean splitHand, boolean splitAces, boolean canSplit) {
+        boolean live = !splitAces && value < 21;
+        switch (action) {
+            case HIT:
+                return live;
+            case DOUBLE:
+                if (!live || !firstTwo || (splitHand && !rules.isDoubleAfterSplit())) {
+                    return false;
+                }
+                switch (rules.getDoubleOn()) {
+                    case NINE_TO_ELEVEN:
+                        return value >= 9 && value <= 11;
+                    case TEN_OR_ELEVEN:
+                        return value == 10 || value == 11;
+                    default:
+                        return true;
+                }
+            case SPLIT:
+                if (!firstTwo || !pair || !canSplit) {
+                    return false;
+                }
+                return splitAces ? rules.isResplitAces() : value < 21;
+            case SURRENDER:
+                return live && firstTwo && !splitHand && rules.isSurrender();
+            default:
+                return true;
+        }
+    }
+
+    private static void handLookupsMatchFlags() {
+        Rules rules = new Rules.Builder().maxHands(2).build();
+        Hand eights = hand(Card.Value.EIGHT, Card.Value.EIGHT);
+        int allowed = rules.allowedActions(eights, 1);
+        Check.isTrue(Action.SPLIT.isAllowed(allowed), "a pair of eights splits");
+        Check.isTrue(Action.SURRENDER.isAllowed(allowed), "a first hand surrenders");
+        Check.isTrue(!Action.SPLIT.isAllowed(rules.allowedActions(eights, 2)), "no split past maxHands");
+
+        Hand splitAce = hand(Card.Value.ACE, Card.Value.ACE);
+        splitAce.setSplit(true);
+        splitAce.setSplitAces(true);
+        Check.equal(Action.STAY.mask(), rules.allowedActions(splitAce, 1), "split aces only stay");
+
+        Hand soft17 = hand(Card.Value.ACE, Card.Value.SIX);
+        Check.isTrue(!Rules.standard().dealerHits(soft17), "S17 stands on soft 17");
+        Check.isTrue(new Rules.Builder().hitSoft17(true).build().dealerHits(soft17), "H17 hits soft 17");
+    }
+
+    private static void payouts() {
+        Rules standard = Rules.standard();
+        for (int bet = 1; bet <= 500; bet++) {
+            Check.equal(bet * 3 / 2, standard.blackjackWinnings(bet), "3:2 on $" + bet);
+        }
+        Check.equal(12, new Rules.Builder().blackjackPays(6, 5).build().blackjackWinnings(10), "6:5 on $10");
+        Rules sideBets = new Rules.Builder().sideBets(true).build();
+        Check.equal(0, sideBets.perfectPairsPays(0), "no pair pays nothing");
+        Check.equal(25, sideBets.perfectPairsPays(3), "perfect pair");
+        Check.equal(100, sideBets.twentyOnePlusThreePays(5), "suited trips");
+    }
+
+    private static void builderRejectsBadLimits() {
+        Check.throwsException(IllegalArgumentException.class, () -> new Rules.Builder().maxHands(Rules.MAX_HANDS + 1),
+                "maxHands above what the hand history records");
+        Check.throwsException(IllegalArgumentException.class, () -> new Rules.Builder().dealerStandsOn(16),
+                "dealer standing below 17");
+        Check.throwsException(IllegalArgumentException.class, () -> new Rules.Builder().betLimits(50, 10),
+                "min bet above max bet");
+    }
+
+    static Hand hand(Card.Value... values) {
+        Hand hand = new Hand();
+        Card.Suit[] suits = Card.Suit.values();
+        for (int i = 0; i < values.length; i++) {
+            hand.addCard(Card.of(suits[i % suits.length], values[i]));
+        }
+        return hand;
+    }
+}